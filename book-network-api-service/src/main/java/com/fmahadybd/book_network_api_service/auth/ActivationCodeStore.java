@@ -0,0 +1,114 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import com.fmahadybd.book_network_api_service.common.EntityIdAllocator;
+import com.fmahadybd.book_network_api_service.user.Token;
+import com.fmahadybd.book_network_api_service.user.TokenRepository;
+import com.fmahadybd.book_network_api_service.user.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.IntSupplier;
+
+/**
+ * Activation codes of the new accounts.
+ * <p>
+ * A code lives for {@code expiration}: activating an account is a single statement that uses up
+ * the code and enables the user, if the code is still valid. The used codes, and the expired ones
+ * once a grace period has passed, are purged in small batches, so that the table only holds the
+ * codes that can still be presented.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivationCodeStore {
+
+    private static final int CODE_LENGTH = 6;
+    // A 6 digit code is taken by a pending account once in a while, another code is drawn then
+    private static final int MAX_DRAWS = 10;
+
+    private final TokenRepository tokenRepository;
+    private final EntityIdAllocator idAllocator;
+    private final PlatformTransactionManager transactionManager;
+    // Thread-safe and seeded once, instead of once per code
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${application.security.activation-code.expiration:900000}")
+    private long expiration;
+    @Value("${application.security.activation-code.purge-grace:86400000}")
+    private long purgeGrace;
+    @Value("${application.security.activation-code.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    /**
+     * Saves a new code for the user. Has to be called inside a transaction.
+     *
+     * @return the code to send to the user
+     */
+    public String issue(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(expiration));
+        for (int i = 0; i < MAX_DRAWS; i++) {
+            String code = generateCode();
+            if (tokenRepository.insertIfAbsent(idAllocator.nextId(Token.class), code, now, expiresAt, user.getId()) == 1) {
+                return code;
+            }
+        }
+        throw new IllegalStateException("No free activation code after " + MAX_DRAWS + " draws");
+    }
+
+    /**
+     * Activates the account of a valid code. Has to be called inside a transaction.
+     *
+     * @return true if the account was activated
+     */
+    public boolean activate(String code) {
+        return tokenRepository.activate(code, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * @return the code, whatever its state, to tell why it could not activate an account
+     */
+    public Optional<Token> find(String code) {
+        return tokenRepository.findByToken(code);
+    }
+
+    @Scheduled(cron = "${application.security.activation-code.purge-cron:0 15 4 * * *}")
+    public void purge() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(Duration.ofMillis(purgeGrace));
+        int validated = purgeInBatches(() -> tokenRepository.deleteValidated(purgeBatchSize));
+        int expired = purgeInBatches(() -> tokenRepository.deleteExpired(expiredBefore, purgeBatchSize));
+        log.info("Purged {} used and {} expired activation codes", validated, expired);
+    }
+
+    /**
+     * Deletes batch after batch, each in its own short transaction, until a batch comes back
+     * incomplete.
+     */
+    private int purgeInBatches(IntSupplier deleteBatch) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> deleteBatch.getAsInt());
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+
+    private String generateCode() {
+        StringBuilder codeBuilder = new StringBuilder(CODE_LENGTH);
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            codeBuilder.append(secureRandom.nextInt(10));
+        }
+        return codeBuilder.toString();
+    }
+}
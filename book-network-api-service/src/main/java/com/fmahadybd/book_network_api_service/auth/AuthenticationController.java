@@ -1,7 +1,7 @@
 package com.fmahadybd.book_network_api_service.auth;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.mail.MessagingException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -27,7 +27,7 @@ public class AuthenticationController {
     @ResponseStatus(HttpStatus.ACCEPTED) // Sets the response status to 202 Accepted.
     public ResponseEntity<?> register(
             @RequestBody @Valid RegistrationRequest request // Extracts request body and validates it.
-    ) throws MessagingException {
+    ) {
         service.register(request); 
         return ResponseEntity.accepted().build(); // Returns 202 Accepted response.
     }
@@ -35,16 +35,34 @@ public class AuthenticationController {
 
     @PostMapping("/authenticate") 
         public ResponseEntity<AuthenticationResponse> authenticate(
-            @RequestBody AuthenticationRequest request // Extracts request body.
+            @RequestBody AuthenticationRequest request, // Extracts request body.
+            HttpServletRequest httpRequest // Client address, for the login rate limit.
+    ) {
+        return ResponseEntity.ok(service.authenticate(request, httpRequest.getRemoteAddr())); // Returns the authentication response.
+    }
+
+
+    @PostMapping("/refresh-token")
+    public ResponseEntity<AuthenticationResponse> refreshToken(
+            @RequestBody @Valid RefreshTokenRequest request
     ) {
-        return ResponseEntity.ok(service.authenticate(request)); // Returns the authentication response.
+        return ResponseEntity.ok(service.refresh(request)); // Returns a new access token and the next refresh token.
+    }
+
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestBody @Valid RefreshTokenRequest request
+    ) {
+        service.logout(request);
+        return ResponseEntity.noContent().build(); // Returns 204 No Content response.
     }
 
 
     @GetMapping("/activate-account")
     public void confirm(
             @RequestParam String token // Extracts token parameter from URL query string.
-    ) throws MessagingException {
+    ) {
         service.activateAccount(token); 
     }
 }
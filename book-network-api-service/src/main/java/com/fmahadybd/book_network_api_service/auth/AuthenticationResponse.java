@@ -10,4 +10,5 @@ import lombok.Setter;
 @Builder
 public class AuthenticationResponse {
     private String token;
+    private String refreshToken;
 }
\ No newline at end of file
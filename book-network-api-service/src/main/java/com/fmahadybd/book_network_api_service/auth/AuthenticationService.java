@@ -1,28 +1,28 @@
 package com.fmahadybd.book_network_api_service.auth;
 
-import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fmahadybd.book_network_api_service.email.EmailService;
 import com.fmahadybd.book_network_api_service.email.EmailTemplateName;
+import com.fmahadybd.book_network_api_service.exception.InvalidTokenException;
 import com.fmahadybd.book_network_api_service.role.RoleRepository;
 import com.fmahadybd.book_network_api_service.security.JwtService;
+import com.fmahadybd.book_network_api_service.security.LoginThrottle;
 import com.fmahadybd.book_network_api_service.user.Token;
-import com.fmahadybd.book_network_api_service.user.TokenRepository;
 import com.fmahadybd.book_network_api_service.user.User;
 import com.fmahadybd.book_network_api_service.user.UserRepository;
 
-import java.security.SecureRandom;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
 
 
 @Service 
@@ -35,14 +35,17 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final RoleRepository roleRepository;
     private final EmailService emailService;
-    private final TokenRepository tokenRepository;
+    private final ActivationCodeStore activationCodeStore;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginThrottle loginThrottle;
 
 
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
 
 
-    public void register(RegistrationRequest request) throws MessagingException {
+    @Transactional // The user, its activation token and the activation email are saved together.
+    public void register(RegistrationRequest request) {
         var userRole = roleRepository.findByName("USER")
                
                 .orElseThrow(() -> new IllegalStateException("ROLE USER was not initiated"));
@@ -61,85 +64,89 @@ public class AuthenticationService {
         sendValidationEmail(user); 
     }
 
-    public AuthenticationResponse authenticate(AuthenticationRequest request) {
+    public AuthenticationResponse authenticate(AuthenticationRequest request, String clientAddress) {
+        loginThrottle.acquire(request.getEmail(), clientAddress); // Refuses login floods before hashing the password
+
         var auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
                         request.getPassword()));
 
-        var claims = new HashMap<String, Object>();
         var user = ((User) auth.getPrincipal());
+        return issueTokens(user, UUID.randomUUID()); // Every login starts a new token family
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token, without
+     * checking the password again.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthenticationResponse refresh(RefreshTokenRequest request) {
+        RefreshToken refreshToken = refreshTokenService.use(request.getRefreshToken());
+        User user = refreshToken.getUser();
+        if (!user.isAccountNonLocked()) {
+            throw new LockedException("User account is locked");
+        }
+        if (!user.isEnabled()) {
+            throw new DisabledException("User account is disabled");
+        }
+        return issueTokens(user, refreshToken.getFamilyId());
+    }
+
+    /**
+     * Revokes the refresh token and every access token issued from the same login.
+     */
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+
+    private AuthenticationResponse issueTokens(User user, UUID familyId) {
+        var claims = new HashMap<String, Object>();
         claims.put("fullName", user.getFullName()); // Adds user's full name as a claim in the token
+        claims.put("id", user.getId()); // Adds user's id, so that the stateless principal needs no lookup
+        claims.put(JwtService.FAMILY_CLAIM, familyId.toString()); // Adds the token family, checked against the revoked ones
 
         var jwtToken = jwtService.generateToken(claims, user); // Generates JWT token
         return AuthenticationResponse.builder()
                 .token(jwtToken)
+                .refreshToken(refreshTokenService.create(user, familyId))
                 .build();
     }
 
 
-    @Transactional // Ensures the activation process runs as a single transaction.
-    public void activateAccount(String token) throws MessagingException {
-        Token savedToken = tokenRepository.findByToken(token)
-                // TODO: Define a proper exception for invalid tokens
-                .orElseThrow(() -> new RuntimeException("Invalid token"));
-
-        // Checks if the token has expired
-        if (LocalDateTime.now().isAfter(savedToken.getExpiresAt())) {
-            sendValidationEmail(savedToken.getUser()); // Resends activation email
-            throw new RuntimeException(
-                    "Activation token has expired. A new token has been sent to the same email address.");
+    // Ensures the activation process runs as a single transaction. The new token and email sent for
+    // an expired token are kept.
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public void activateAccount(String token) {
+        // Uses up the token and enables the user in one statement
+        if (activationCodeStore.activate(token)) {
+            return;
         }
 
-        var user = userRepository.findById(savedToken.getUser().getId())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        Token savedToken = activationCodeStore.find(token)
+                .orElseThrow(() -> new InvalidTokenException("Invalid token"));
 
-        user.setEnabled(true); // Enables the user account
-        userRepository.save(user); // Saves the updated user state
-
-        savedToken.setValidatedAt(LocalDateTime.now()); // Marks token as used
-        tokenRepository.save(savedToken);
-    }
-
-    private String generateAndSaveActivationToken(User user) {
-        // Generates a random 6-digit activation code
-        String generatedToken = generateActivationCode(6);
-
-        var token = Token.builder()
-                .token(generatedToken)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(15)) // Token expires in 15 minutes
-                .user(user)
-                .build();
+        // The account was already activated with this token
+        if (savedToken.getValidatedAt() != null) {
+            return;
+        }
 
-        tokenRepository.save(token); // Saves the token in the database
-        return generatedToken;
+        // Otherwise the token has expired
+        sendValidationEmail(savedToken.getUser()); // Resends activation email
+        throw new InvalidTokenException(
+                "Activation token has expired. A new token has been sent to the same email address.");
     }
 
 
-    private void sendValidationEmail(User user) throws MessagingException {
-        var newToken = generateAndSaveActivationToken(user); // Generates a new token
+    private void sendValidationEmail(User user) {
+        var newToken = activationCodeStore.issue(user); // Generates and saves a new token
 
-        emailService.sendEmail(
+        emailService.queueEmail(
                 user.getEmail(),
                 user.getFullName(),
                 EmailTemplateName.ACTIVATE_ACCOUNT,
                 activationUrl,
                 newToken,
-                "Account activation"); // Sends email with activation instructions
-    }
-
-
-    private String generateActivationCode(int length) {
-        String characters = "0123456789";
-        StringBuilder codeBuilder = new StringBuilder();
-        SecureRandom secureRandom = new SecureRandom();
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = secureRandom.nextInt(characters.length());
-            codeBuilder.append(characters.charAt(randomIndex));
-        }
-
-        return codeBuilder.toString(); // Returns the generated activation code
+                "Account activation"); // Queues email with activation instructions
     }
 }
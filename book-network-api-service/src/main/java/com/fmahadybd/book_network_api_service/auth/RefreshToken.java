@@ -0,0 +1,49 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import com.fmahadybd.book_network_api_service.user.User;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A refresh token, stored as the SHA-256 hash of the value handed to the client. The tokens issued
+ * from the same login share a family, which is revoked as a whole when a used token is presented
+ * again.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class RefreshToken {
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(unique = true, nullable = false)
+    private String tokenHash;
+    @Column(nullable = false)
+    private UUID familyId;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+    private LocalDateTime usedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "userId", nullable = false)
+    private User user;
+}
@@ -0,0 +1,43 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
+
+        Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+        /**
+         * Uses up the token, unless a concurrent refresh already did.
+         *
+         * @return 1 if the token was unused, 0 otherwise
+         */
+        @Modifying
+        @Query("""
+                        UPDATE RefreshToken token
+                        SET token.usedAt = :now
+                        WHERE token.id = :id
+                        AND token.usedAt IS NULL
+                        """)
+        int markUsed(@Param("id") Integer id, @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query("""
+                        DELETE FROM RefreshToken token
+                        WHERE token.familyId = :familyId
+                        """)
+        int deleteFamily(@Param("familyId") UUID familyId);
+
+        @Modifying
+        @Query("""
+                        DELETE FROM RefreshToken token
+                        WHERE token.expiresAt < :now
+                        """)
+        int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenRequest {
+
+    @NotEmpty(message = "Refresh token is mandatory")
+    private String refreshToken;
+}
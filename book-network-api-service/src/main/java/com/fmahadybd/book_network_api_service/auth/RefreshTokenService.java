@@ -0,0 +1,116 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import com.fmahadybd.book_network_api_service.exception.InvalidTokenException;
+import com.fmahadybd.book_network_api_service.security.TokenRevocationList;
+import com.fmahadybd.book_network_api_service.user.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates the refresh tokens.
+ * <p>
+ * A refresh token can be used once: using it issues the next token of its family. When a used
+ * token is presented again, the token was stolen or replayed, and the whole family is revoked,
+ * which also refuses the access tokens issued from it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationList revocationList;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private long refreshExpiration;
+
+    /**
+     * Issues a new refresh token in the given family.
+     *
+     * @return the token to hand to the client, only its hash is stored
+     */
+    @Transactional
+    public String create(User user, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .familyId(familyId)
+                .user(user)
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofMillis(refreshExpiration)))
+                .build());
+        return token;
+    }
+
+    /**
+     * Uses up a refresh token. A token used twice revokes its family; the revocation is kept even
+     * though the refresh fails.
+     *
+     * @return the used token, with its family and user
+     * @throws InvalidTokenException if the token is unknown, expired or already used
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public RefreshToken use(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+        if (now.isAfter(refreshToken.getExpiresAt())) {
+            throw new InvalidTokenException("Refresh token has expired");
+        }
+        if (refreshTokenRepository.markUsed(refreshToken.getId(), now) == 0) {
+            log.warn("Refresh token reused, revoking token family {}", refreshToken.getFamilyId());
+            revoke(refreshToken.getFamilyId());
+            throw new InvalidTokenException("Refresh token was already used");
+        }
+        return refreshToken;
+    }
+
+    /**
+     * Revokes the family of the given refresh token, if the token is known.
+     */
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(refreshToken -> revoke(refreshToken.getFamilyId()));
+    }
+
+    @Scheduled(cron = "${application.security.jwt.revocation.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        log.info("Purged {} expired refresh tokens", purged);
+    }
+
+    private void revoke(UUID familyId) {
+        refreshTokenRepository.deleteFamily(familyId);
+        revocationList.revoke(familyId);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
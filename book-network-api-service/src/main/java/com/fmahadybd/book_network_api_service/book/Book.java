@@ -7,12 +7,17 @@ import com.fmahadybd.book_network_api_service.feedback.Feedback;
 import com.fmahadybd.book_network_api_service.hostory.BookTransactionHistory;
 import com.fmahadybd.book_network_api_service.user.User;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -35,6 +40,17 @@ public class Book extends BaseEntity {
     private String bookCover;
     private boolean archived;
     private boolean shareable;
+    /**
+     * Whether the book has no open loan, maintained by the borrow and the approval of its return.
+     * Only their conditional updates change it, a save of the book never writes it back.
+     */
+    @ColumnDefault("true")
+    @Column(nullable = false, updatable = false)
+    @Builder.Default
+    private boolean available = true;
+    @Embedded
+    @Builder.Default
+    private BookRating rating = new BookRating();
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User owner;
@@ -45,17 +61,7 @@ public class Book extends BaseEntity {
 
     @Transient
     public double getRate() {
-        if (feedbacks == null || feedbacks.isEmpty()) {
-            return 0.0;
-        }
-        var rate = this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
-        double roundedRate = Math.round(rate * 10.0) / 10.0;
-
-        // Return 4.0 if roundedRate is less than 4.5, otherwise return 4.5
-        return roundedRate;
+        return rating == null ? 0.0 : rating.getRate();
     }
 
 }
@@ -1,5 +1,17 @@
 package com.fmahadybd.book_network_api_service.book;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -7,17 +19,24 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fmahadybd.book_network_api_service.common.DataFormat;
 import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
+import com.fmahadybd.book_network_api_service.hostory.HistoryExportService;
 
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -27,6 +46,8 @@ import lombok.RequiredArgsConstructor;
 public class BookController {
 
     private final BookService service;
+    private final BookImportService importService;
+    private final HistoryExportService historyExportService;
 
     @PostMapping
     public ResponseEntity<Integer> saveBook(
@@ -36,47 +57,139 @@ public class BookController {
         return ResponseEntity.ok(service.save(request, connectedUser));
     }
 
+    /**
+     * Imports the books of a CSV or NDJSON file streamed as the request body, and reports the rows
+     * that were rejected.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<BookImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream content,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(importService.importBooks(content, DataFormat.of(contentType), connectedUser));
+    }
+
     @GetMapping("/{book-id}")
     public ResponseEntity<BookResponse> findBookById(
+            @PathVariable("book-id") Integer bookId,
+            WebRequest webRequest
+    ) {
+        String eTag = service.findBookETag(bookId);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(service.findById(bookId));
+    }
+
+    @GetMapping("/{book-id}/rating")
+    public ResponseEntity<RatingDistributionResponse> findRatingDistribution(
             @PathVariable("book-id") Integer bookId
     ) {
-        return ResponseEntity.ok(service.findById(bookId));
+        return ResponseEntity.ok(service.findRatingDistribution(bookId));
     }
 
     @GetMapping
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
-            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
-            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
+            @RequestParam(name = "available", defaultValue = "false", required = false) boolean availableOnly,
+            Authentication connectedUser,
+            WebRequest webRequest
+    ) {
+        String eTag = service.findAllBooksETag(connectedUser);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (cursor != null) {
+            return response.body(service.findAllBooksAfter(cursor, size, availableOnly, connectedUser));
+        }
+        return response.body(service.findAllBooks(page, size, total, availableOnly, connectedUser));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<BookResponse>> searchBooks(
+            @RequestParam(name = "query") String query,
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(service.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok(service.searchBooks(query, page, size, total, connectedUser));
+    }
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<BookSuggestionResponse>> suggestBooks(
+            @RequestParam(name = "query") String query,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(service.suggestBooks(query, size, connectedUser));
     }
 
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
-            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
-            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(service.findAllBooksByOwner(page, size, connectedUser));
+        if (cursor != null) {
+            return ResponseEntity.ok(service.findAllBooksByOwnerAfter(cursor, size, connectedUser));
+        }
+        return ResponseEntity.ok(service.findAllBooksByOwner(page, size, total, connectedUser));
     }
 
     @GetMapping("/borrowed")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooks(
-            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
-            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(service.findAllBorrowedBooks(page, size, connectedUser));
+        if (cursor != null) {
+            return ResponseEntity.ok(service.findAllBorrowedBooksAfter(cursor, size, connectedUser));
+        }
+        return ResponseEntity.ok(service.findAllBorrowedBooks(page, size, total, connectedUser));
     }
 
     @GetMapping("/returned")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
-            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
-            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(service.findAllReturnedBooks(page, size, connectedUser));
+        if (cursor != null) {
+            return ResponseEntity.ok(service.findAllReturnedBooksAfter(cursor, size, connectedUser));
+        }
+        return ResponseEntity.ok(service.findAllReturnedBooks(page, size, total, connectedUser));
+    }
+
+    /**
+     * Streams the whole borrow and lending history of the connected user.
+     */
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(name = "format", defaultValue = "CSV", required = false) DataFormat format,
+            Authentication connectedUser
+    ) {
+        String filename = "history." + format.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(historyExportService.exportHistory(format, connectedUser));
     }
 
     @PatchMapping("/shareable/{book-id}")
@@ -95,6 +208,22 @@ public class BookController {
         return ResponseEntity.ok(service.updateArchivedStatus(bookId, connectedUser));
     }
 
+    @PatchMapping("/shareable")
+    public ResponseEntity<List<BulkResult>> updateShareableStatuses(
+            @Valid @RequestBody BookIdsRequest request,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(service.updateShareableStatuses(request.bookIds(), connectedUser));
+    }
+
+    @PatchMapping("/archived")
+    public ResponseEntity<List<BulkResult>> updateArchivedStatuses(
+            @Valid @RequestBody BookIdsRequest request,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(service.updateArchivedStatuses(request.bookIds(), connectedUser));
+    }
+
     @PostMapping("borrow/{book-id}")
     public ResponseEntity<Integer> borrowBook(
             @PathVariable("book-id") Integer bookId,
@@ -119,6 +248,14 @@ public class BookController {
         return ResponseEntity.ok(service.approveReturnBorrowedBook(bookId, connectedUser));
     }
 
+    @PatchMapping("borrow/return/approve")
+    public ResponseEntity<List<BulkResult>> approveReturnBorrowBooks(
+            @Valid @RequestBody BookIdsRequest request,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(service.approveReturnBorrowedBooks(request.bookIds(), connectedUser));
+    }
+
     @PostMapping(value = "/cover/{book-id}", consumes = "multipart/form-data")
     public ResponseEntity<?> uploadBookCoverPicture(
             @PathVariable("book-id") Integer bookId,
@@ -129,4 +266,33 @@ public class BookController {
         service.uploadBookCoverPicture(file, connectedUser, bookId);
         return ResponseEntity.accepted().build();
     }
+
+    /**
+     * Streams the cover picture of a book. Range requests are answered by the
+     * resource message converters, and the validators let clients revalidate
+     * with a 304 instead of downloading the picture again. Only the URL of the
+     * current version, as given in the book responses, is cached indefinitely.
+     */
+    @GetMapping("/cover/{book-id}")
+    public ResponseEntity<Resource> findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "v", required = false) String version,
+            WebRequest webRequest
+    ) throws IOException {
+        BookCover bookCover = service.findBookCover(bookId);
+        Resource cover = bookCover.picture();
+        long lastModified = cover.lastModified();
+        String eTag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(cover.contentLength()) + "\"";
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .cacheControl(bookCover.version().equals(version)
+                        ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                        : CacheControl.noCache().cachePrivate())
+                .contentType(MediaTypeFactory.getMediaType(cover).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .body(cover);
+    }
 }
@@ -0,0 +1,11 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * The cover picture of a book, with the version its URL carries.
+ *
+ * @param version the {@code v} parameter of the current cover URL, see {@link BookMapper#toCoverVersion(String)}
+ */
+public record BookCover(Resource picture, String version) {
+}
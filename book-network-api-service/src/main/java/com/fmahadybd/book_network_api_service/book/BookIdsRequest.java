@@ -0,0 +1,11 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record BookIdsRequest(
+        @NotNull(message = "104") @NotEmpty(message = "104") @Size(max = 1000, message = "105") List<Integer> bookIds) {
+}
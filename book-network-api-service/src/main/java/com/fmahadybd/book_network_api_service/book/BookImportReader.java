@@ -0,0 +1,272 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+
+/**
+ * Reads the rows of an import file one at a time, so that files of any size are imported without
+ * being held in memory. A malformed row is returned with its error instead of stopping the import.
+ * <p>
+ * Rows and fields are bounded, well above the 255 characters of the book columns: a longer row,
+ * such as the rest of a file swallowed by a stray quote, is reported as malformed and the reading
+ * resumes at the next line break.
+ */
+public abstract class BookImportReader implements Iterator<BookImportRow> {
+
+    static final int MAX_FIELD_LENGTH = 1024;
+    static final int MAX_ROW_LENGTH = 16 * 1024;
+
+    protected final BufferedReader reader;
+    protected long row;
+    private BookImportRow next;
+
+    protected BookImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    public static BookImportReader of(DataFormat format, BufferedReader reader, ObjectMapper objectMapper) {
+        return switch (format) {
+            case CSV -> new Csv(reader);
+            case NDJSON -> new Ndjson(reader, objectMapper);
+        };
+    }
+
+    /**
+     * @return the next row, or {@code null} at the end of the file
+     */
+    protected abstract BookImportRow read() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BookImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * Skips the rest of the current line.
+     */
+    protected void skipLine() throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c != -1 && c != '\n');
+    }
+
+    private static class Ndjson extends BookImportReader {
+
+        // Returned by readLine() for a line over the limit, compared by identity
+        private static final String TOO_LONG = new String("line too long");
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected BookImportRow read() throws IOException {
+            String line;
+            do {
+                line = readLine();
+                if (line == null) {
+                    return null;
+                }
+                row++;
+            } while (line != TOO_LONG && line.isBlank());
+            if (line == TOO_LONG) {
+                return new BookImportRow(row, null, "Malformed JSON: line longer than " + MAX_ROW_LENGTH + " characters");
+            }
+            try {
+                BookRequest request = objectMapper.readValue(line, BookRequest.class);
+                if (request == null) {
+                    return new BookImportRow(row, null, "Malformed JSON: expected an object, found null");
+                }
+                return new BookImportRow(row, request, null);
+            } catch (JsonProcessingException e) {
+                return new BookImportRow(row, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        /**
+         * @return the next line, {@link #TOO_LONG} if it is longer than the limit, or {@code null}
+         *         at the end of the file
+         */
+        private String readLine() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            StringBuilder line = new StringBuilder();
+            for (; c != -1 && c != '\n'; c = reader.read()) {
+                if (line.length() == MAX_ROW_LENGTH) {
+                    skipLine();
+                    return TOO_LONG;
+                }
+                line.append((char) c);
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * RFC 4180 values: fields may be quoted to contain commas, line breaks and doubled quotes.
+     * Columns are matched by name, in any order, and unknown columns are ignored. Rows are numbered
+     * by record, whatever the line breaks of their quoted fields.
+     */
+    private static class Csv extends BookImportReader {
+
+        private Map<String, Integer> columns;
+        // Why the last record read is malformed, if it is
+        private String error;
+
+        Csv(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected BookImportRow read() throws IOException {
+            if (columns == null) {
+                columns = readHeader();
+            }
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (error == null && fields.size() == 1 && fields.get(0).isBlank());
+            row++;
+            if (error != null) {
+                return new BookImportRow(row, null, "Malformed CSV: " + error);
+            }
+            BookRequest request = new BookRequest(
+                    null,
+                    field(fields, "title"),
+                    field(fields, "authorname"),
+                    field(fields, "isbn"),
+                    field(fields, "synopsis"),
+                    Boolean.parseBoolean(field(fields, "shareable")));
+            return new BookImportRow(row, request, null);
+        }
+
+        private Map<String, Integer> readHeader() throws IOException {
+            List<String> header = readRecord();
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; header != null && i < header.size(); i++) {
+                columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+            }
+            return columns;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= fields.size() ? null : fields.get(index);
+        }
+
+        private List<String> readRecord() throws IOException {
+            error = null;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean closed = false;
+            int length = 0;
+            for (; c != -1; c = reader.read()) {
+                if (++length > MAX_ROW_LENGTH) {
+                    return overflow(fields, c, "record longer than " + MAX_ROW_LENGTH + " characters");
+                }
+                if (field.length() > MAX_FIELD_LENGTH) {
+                    return overflow(fields, c, "field " + (fields.size() + 1) + " longer than " + MAX_FIELD_LENGTH
+                            + " characters");
+                }
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                        closed = true;
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    closed = false;
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    continue;
+                } else if (closed) {
+                    malformed("text after the closing quote of field " + (fields.size() + 1));
+                    field.append((char) c);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == '"') {
+                    malformed("quote inside the unquoted field " + (fields.size() + 1));
+                    field.append((char) c);
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (quoted) {
+                malformed("quoted field " + (fields.size() + 1) + " is not closed before the end of the file");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        /**
+         * Gives up the record past a limit: the rest of its line is skipped, so that the next record
+         * starts at the next line break.
+         */
+        private List<String> overflow(List<String> fields, int c, String error) throws IOException {
+            malformed(error);
+            if (c != '\n') {
+                skipLine();
+            }
+            return fields;
+        }
+
+        private void malformed(String error) {
+            if (this.error == null) {
+                this.error = error;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookImportResponse {
+
+    private long imported;
+    private long rejected;
+    /**
+     * Errors of the first rejected rows, up to the configured limit.
+     */
+    private List<BookImportError> errors;
+
+}
@@ -0,0 +1,9 @@
+package com.fmahadybd.book_network_api_service.book;
+
+/**
+ * A row read by the bulk import: the parsed book, or the reason why it could not be parsed.
+ *
+ * @param row number of the row in the file, starting at 1 with the first book
+ */
+public record BookImportRow(long row, BookRequest request, String error) {
+}
@@ -0,0 +1,181 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+import com.fmahadybd.book_network_api_service.common.EntityIdAllocator;
+import com.fmahadybd.book_network_api_service.security.UserPrincipal;
+import com.fmahadybd.book_network_api_service.user.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports whole libraries in one request. Rows are parsed one at a time, validated with the
+ * {@link BookRequest} constraints and inserted in JDBC batches, each batch in its own transaction
+ * so that a failing batch does not roll back the books already imported.
+ * <p>
+ * The batches bypass the persistence context, which costs more than the inserts themselves for
+ * large imports, so the audit columns are filled here instead of by the entity listener.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookImportService {
+
+    private static final String INSERT_BOOK = """
+            INSERT INTO book (id, created_date, created_by, title, author_name, isbn, synopsis,
+            archived, shareable, available, owner_id, rating_count, rating_sum,
+            rating_stars0, rating_stars1, rating_stars2, rating_stars3, rating_stars4, rating_stars5)
+            VALUES (?, ?, ?, ?, ?, ?, ?, false, ?, true, ?, 0, 0, 0, 0, 0, 0, 0, 0)
+            """;
+
+    private final EntityManager entityManager;
+    private final EntityIdAllocator idAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final BookMapper bookMapper;
+    private final BookSuggestionIndex suggestionIndex;
+    private final CatalogSnapshot catalogSnapshot;
+
+    @Value("${application.book-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.book-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public BookImportResponse importBooks(InputStream content, DataFormat format, Authentication connectedUser) {
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        ImportReport report = new ImportReport(maxReportedErrors);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(content, UTF_8))) {
+            Iterator<BookImportRow> rows = BookImportReader.of(format, reader, objectMapper);
+            List<BookImportRow> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext()) {
+                BookImportRow row = rows.next();
+                if (isValid(row, report)) {
+                    batch.add(row);
+                }
+                if (batch.size() == batchSize) {
+                    insert(batch, user.id(), report);
+                    batch.clear();
+                }
+            }
+            insert(batch, user.id(), report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (report.imported > 0) {
+                catalogSnapshot.invalidate();
+            }
+        }
+        log.info("Imported {} books for user {}, {} rows rejected", report.imported, user.id(), report.rejected);
+        return BookImportResponse.builder()
+                .imported(report.imported)
+                .rejected(report.rejected)
+                .errors(report.errors)
+                .build();
+    }
+
+    private boolean isValid(BookImportRow row, ImportReport report) {
+        if (row.error() != null) {
+            report.reject(row.row(), row.error(), null);
+            return false;
+        }
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(row.request());
+        if (!violations.isEmpty()) {
+            report.reject(row.row(), null, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.toSet()));
+            return false;
+        }
+        return true;
+    }
+
+    private void insert(List<BookImportRow> rows, Integer ownerId, ImportReport report) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                User owner = entityManager.getReference(User.class, ownerId);
+                LocalDateTime now = LocalDateTime.now();
+                List<Book> books = new ArrayList<>(rows.size());
+                for (BookImportRow row : rows) {
+                    Book book = bookMapper.toBook(row.request());
+                    book.setId(idAllocator.nextId(Book.class));
+                    book.setOwner(owner);
+                    book.setCreatedDate(now);
+                    book.setCreatedBy(ownerId);
+                    books.add(book);
+                }
+                jdbcTemplate.batchUpdate(INSERT_BOOK, books, batchSize, (statement, book) -> {
+                    statement.setInt(1, book.getId());
+                    statement.setObject(2, book.getCreatedDate());
+                    statement.setInt(3, book.getCreatedBy());
+                    statement.setString(4, book.getTitle());
+                    statement.setString(5, book.getAuthorName());
+                    statement.setString(6, book.getIsbn());
+                    statement.setString(7, book.getSynopsis());
+                    statement.setBoolean(8, book.isShareable());
+                    statement.setInt(9, ownerId);
+                });
+                suggestionIndex.update(books);
+            });
+            report.imported += rows.size();
+        } catch (DataAccessException | TransactionException e) {
+            String error = "The batch of this row could not be saved: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            rows.forEach(row -> report.reject(row.row(), error, null));
+        }
+    }
+
+    private static class ImportReport {
+
+        private final int maxReportedErrors;
+        private final List<BookImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        ImportReport(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void reject(long row, String error, Set<String> validationErrors) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(BookImportError.builder()
+                        .row(row)
+                        .error(error)
+                        .validationErrors(validationErrors)
+                        .build());
+            }
+        }
+    }
+}
@@ -2,9 +2,6 @@ package com.fmahadybd.book_network_api_service.book;
 
 import org.springframework.stereotype.Service;
 
-import com.fmahadybd.book_network_api_service.file.FileUtils;
-import com.fmahadybd.book_network_api_service.hostory.BookTransactionHistory;
-
 @Service
 public class BookMapper {
     public Book toBook(BookRequest request) {
@@ -29,20 +26,64 @@ public class BookMapper {
                 .rate(book.getRate())
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
+                .available(book.isAvailable())
                 .owner(book.getOwner().fullName())
-                .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+                .coverUrl(toCoverUrl(book.getId(), book.getBookCover()))
+                .build();
+    }
+
+    public BookResponse toBookResponse(BookSummary book) {
+        return BookResponse.builder()
+                .id(book.id())
+                .title(book.title())
+                .authorName(book.authorName())
+                .isbn(book.isbn())
+                .synopsis(book.synopsis())
+                .rate(book.rating().getRate())
+                .archived(book.archived())
+                .shareable(book.shareable())
+                .available(book.available())
+                .owner(book.ownerFirstname() + " " + book.ownerLastname())
+                .coverUrl(toCoverUrl(book.id(), book.bookCover()))
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
+    /**
+     * Points to the cover endpoint instead of embedding the picture bytes.
+     * The stored file name is timestamped, so the version changes on every upload
+     * and clients may cache the picture indefinitely.
+     */
+    private String toCoverUrl(Integer bookId, String bookCover) {
+        if (bookCover == null) {
+            return null;
+        }
+        return "/books/cover/" + bookId + "?v=" + toCoverVersion(bookCover);
+    }
+
+    /**
+     * @return the version of the cover URL of a stored cover file
+     */
+    public String toCoverVersion(String bookCover) {
+        return Integer.toHexString(bookCover.hashCode());
+    }
+
+    public BorrowedBookResponse toBorrowedBookResponse(BorrowedBookSummary history) {
         return BorrowedBookResponse.builder()
-                .id(history.getBook().getId())
-                .title(history.getBook().getTitle())
-                .authorName(history.getBook().getAuthorName())
-                .isbn(history.getBook().getIsbn())
-                .rate(history.getBook().getRate())
-                .returned(history.isReturned())
-                .returnApproved(history.isReturnApproved())
+                .id(history.id())
+                .title(history.title())
+                .authorName(history.authorName())
+                .isbn(history.isbn())
+                .rate(history.rating().getRate())
+                .returned(history.returned())
+                .returnApproved(history.returnApproved())
+                .build();
+    }
+
+    public BookSuggestionResponse toBookSuggestionResponse(BookSuggestion suggestion) {
+        return BookSuggestionResponse.builder()
+                .id(suggestion.id())
+                .title(suggestion.title())
+                .authorName(suggestion.authorName())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.fmahadybd.book_network_api_service.book;
+
+/**
+ * Owner and status of a book, read for many books at once to check the bulk operations.
+ */
+public record BookOwnership(
+        Integer bookId,
+        Integer ownerId,
+        boolean archived,
+        boolean shareable) {
+}
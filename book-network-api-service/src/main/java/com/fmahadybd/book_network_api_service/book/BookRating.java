@@ -0,0 +1,74 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.util.List;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Rating aggregate of a book, maintained together with every saved feedback so
+ * that the rate and its distribution can be read without loading the feedbacks.
+ * A feedback note counts in the bucket of its whole number of stars.
+ * <p>
+ * The columns are read-only for the entity: only the atomic increments of
+ * {@link BookRepository#addRating} and the reconciliation change them, so that
+ * saving a book loaded before a feedback does not write back stale counters.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class BookRating {
+
+    public static final int MAX_STARS = 5;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+    private long count;
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    private double sum;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars0", nullable = false, insertable = false, updatable = false)
+    private long stars0;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars1", nullable = false, insertable = false, updatable = false)
+    private long stars1;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars2", nullable = false, insertable = false, updatable = false)
+    private long stars2;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars3", nullable = false, insertable = false, updatable = false)
+    private long stars3;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars4", nullable = false, insertable = false, updatable = false)
+    private long stars4;
+    @ColumnDefault("0")
+    @Column(name = "rating_stars5", nullable = false, insertable = false, updatable = false)
+    private long stars5;
+
+    public static int toStars(double note) {
+        return (int) Math.max(0, Math.min(MAX_STARS, Math.floor(note)));
+    }
+
+    public double getRate() {
+        if (count == 0) {
+            return 0.0;
+        }
+        return Math.round(sum / count * 10.0) / 10.0;
+    }
+
+    /**
+     * @return the number of feedbacks per whole number of stars, indexed from 0 to 5
+     */
+    public List<Long> getDistribution() {
+        return List.of(stars0, stars1, stars2, stars3, stars4, stars5);
+    }
+}
@@ -0,0 +1,63 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically recomputes the {@link BookRating} aggregates from the feedbacks
+ * to repair any drift of the incrementally maintained values.
+ * <p>
+ * The books are reconciled in id ranges, each in its own short transaction: the
+ * books of a range are locked first, so that a feedback saved meanwhile either
+ * committed before and is counted, or increments the counters after the batch.
+ * Only the books whose counters drifted are written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookRatingReconciler {
+
+    private final BookRepository bookRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${application.rating.reconciliation-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${application.rating.reconciliation-cron:0 0 3 * * *}")
+    public void reconcile() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        // Below any id, negative ones included
+        long afterId = Integer.MIN_VALUE - 1L;
+        int books = 0;
+        int repaired = 0;
+        Batch batch;
+        do {
+            long from = afterId;
+            batch = transactionTemplate.execute(status -> reconcileBatch(from));
+            books += batch.books();
+            repaired += batch.repaired();
+            afterId = batch.lastId();
+        } while (batch.books() == batchSize);
+        log.info("Rating aggregates reconciled for {} books, {} repaired", books, repaired);
+    }
+
+    private Batch reconcileBatch(long afterId) {
+        List<Integer> bookIds = bookRepository.lockBooksForReconciliation(afterId, batchSize);
+        if (bookIds.isEmpty()) {
+            return new Batch(0, afterId, 0);
+        }
+        Integer lastId = bookIds.get(bookIds.size() - 1);
+        return new Batch(bookIds.size(), lastId, bookRepository.reconcileRatings(bookIds.get(0), lastId));
+    }
+
+    private record Batch(int books, long lastId, int repaired) {
+    }
+}
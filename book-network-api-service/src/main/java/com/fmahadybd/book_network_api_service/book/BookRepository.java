@@ -1,20 +1,360 @@
 package com.fmahadybd.book_network_api_service.book;
 
-import org.springframework.data.domain.Page;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fmahadybd.book_network_api_service.common.ContentVersion;
 
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
 
         @Query("""
-                        SELECT book
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND owner.id != :userId
+                        """)
+        Slice<BookSummary> findAllDisplayableBooks(Pageable pageable, Integer userId);
+
+        @Query("""
+                        SELECT COUNT(book)
+                        FROM Book book
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND book.owner.id != :userId
+                        """)
+        long countDisplayableBooks(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        ORDER BY book.createdDate DESC, book.id DESC
+                        """)
+        List<BookSummary> findLatestDisplayableBooks(Pageable pageable);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND book.available = true
+                        AND owner.id != :userId
+                        """)
+        Slice<BookSummary> findAllAvailableBooks(Pageable pageable, Integer userId);
+
+        @Query("""
+                        SELECT COUNT(book)
                         FROM Book book
                         WHERE book.archived = false
                         AND book.shareable = true
+                        AND book.available = true
                         AND book.owner.id != :userId
                         """)
-        Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+        long countAvailableBooks(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND book.available = true
+                        AND owner.id != :userId
+                        AND (book.createdDate, book.id) < (:createdDate, :bookId)
+                        ORDER BY book.createdDate DESC, book.id DESC
+                        """)
+        List<BookSummary> findAvailableBooksAfter(@Param("userId") Integer userId,
+                        @Param("createdDate") LocalDateTime createdDate, @Param("bookId") Integer bookId,
+                        Pageable pageable);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.common.ContentVersion(
+                        COUNT(book),
+                        MAX(GREATEST(COALESCE(book.lastModifiedDate, book.createdDate),
+                        COALESCE(owner.lastModifiedDate, owner.createdDate))),
+                        SUM(book.rating.count), SUM(book.rating.sum))
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.id = :bookId
+                        """)
+        ContentVersion findBookVersionById(@Param("bookId") Integer bookId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE owner.id = :userId
+                        """)
+        Slice<BookSummary> findAllByOwnerId(Pageable pageable, Integer userId);
+
+        @Query("""
+                        SELECT COUNT(book)
+                        FROM Book book
+                        WHERE book.owner.id = :userId
+                        """)
+        long countByOwnerId(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND owner.id != :userId
+                        AND (book.createdDate, book.id) < (:createdDate, :bookId)
+                        ORDER BY book.createdDate DESC, book.id DESC
+                        """)
+        List<BookSummary> findDisplayableBooksAfter(@Param("userId") Integer userId,
+                        @Param("createdDate") LocalDateTime createdDate, @Param("bookId") Integer bookId,
+                        Pageable pageable);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE owner.id = :userId
+                        AND (book.createdDate, book.id) < (:createdDate, :bookId)
+                        ORDER BY book.createdDate DESC, book.id DESC
+                        """)
+        List<BookSummary> findBooksByOwnerIdAfter(@Param("userId") Integer userId,
+                        @Param("createdDate") LocalDateTime createdDate, @Param("bookId") Integer bookId,
+                        Pageable pageable);
+
+        @Query(value = """
+                        SELECT book.id
+                        FROM book book, websearch_to_tsquery('english', :query) query
+                        WHERE book.search_vector @@ query
+                        AND book.archived = false
+                        AND book.shareable = true
+                        AND book.owner_id <> :userId
+                        ORDER BY ts_rank(book.search_vector, query) DESC, book.id DESC
+                        """, nativeQuery = true)
+        Slice<Integer> searchDisplayableBookIds(@Param("query") String query, @Param("userId") Integer userId,
+                        Pageable pageable);
+
+        @Query(value = """
+                        SELECT COUNT(*)
+                        FROM book book, websearch_to_tsquery('english', :query) query
+                        WHERE book.search_vector @@ query
+                        AND book.archived = false
+                        AND book.shareable = true
+                        AND book.owner_id <> :userId
+                        """, nativeQuery = true)
+        long countSearchDisplayableBooks(@Param("query") String query, @Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                        owner.id, owner.firstname, owner.lastname, book.bookCover, book.rating,
+                        book.archived, book.shareable, book.available, book.createdDate)
+                        FROM Book book
+                        JOIN book.owner owner
+                        WHERE book.id IN :bookIds
+                        """)
+        List<BookSummary> findAllSummariesByIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSuggestion(
+                        book.id, book.title, book.authorName, book.owner.id)
+                        FROM Book book
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        """)
+        List<BookSuggestion> findAllDisplayableSuggestions();
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookOwnership(
+                        book.id, book.owner.id, book.archived, book.shareable)
+                        FROM Book book
+                        WHERE book.id IN :bookIds
+                        """)
+        List<BookOwnership> findOwnershipsByIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+        @Modifying
+        @Query("""
+                        UPDATE Book book
+                        SET book.shareable = CASE WHEN book.shareable = true THEN false ELSE true END,
+                        book.lastModifiedDate = :now,
+                        book.lastModifiedBy = :userId
+                        WHERE book.id IN :bookIds
+                        AND book.owner.id = :userId
+                        """)
+        int toggleShareable(@Param("bookIds") Collection<Integer> bookIds, @Param("userId") Integer userId,
+                        @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query("""
+                        UPDATE Book book
+                        SET book.archived = CASE WHEN book.archived = true THEN false ELSE true END,
+                        book.lastModifiedDate = :now,
+                        book.lastModifiedBy = :userId
+                        WHERE book.id IN :bookIds
+                        AND book.owner.id = :userId
+                        """)
+        int toggleArchived(@Param("bookIds") Collection<Integer> bookIds, @Param("userId") Integer userId,
+                        @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query("""
+                        UPDATE Book book
+                        SET book.available = true,
+                        book.lastModifiedDate = :now,
+                        book.lastModifiedBy = :userId
+                        WHERE book.id IN :bookIds
+                        """)
+        int markAvailable(@Param("bookIds") Collection<Integer> bookIds, @Param("userId") Integer userId,
+                        @Param("now") LocalDateTime now);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BookSuggestion(
+                        book.id, book.title, book.authorName, book.owner.id)
+                        FROM Book book
+                        WHERE book.archived = false
+                        AND book.shareable = true
+                        AND book.id IN :bookIds
+                        """)
+        List<BookSuggestion> findDisplayableSuggestionsByIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+        @Query("""
+                        SELECT book.bookCover
+                        FROM Book book
+                        WHERE book.id = :bookId
+                        """)
+        Optional<String> findBookCoverById(Integer bookId);
+
+        /**
+         * Points the book of the owner to its new cover in its own short transaction, leaving the
+         * other columns as they are.
+         *
+         * @return 1 if the cover was updated, 0 if the book does not exist or is not of this owner
+         */
+        @Modifying
+        @Transactional
+        @Query("""
+                        UPDATE Book book
+                        SET book.bookCover = :bookCover,
+                        book.lastModifiedDate = :now,
+                        book.lastModifiedBy = :userId
+                        WHERE book.id = :bookId
+                        AND book.owner.id = :userId
+                        """)
+        int updateBookCover(@Param("bookId") Integer bookId, @Param("bookCover") String bookCover,
+                        @Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
+        @Query("""
+                        SELECT book.rating
+                        FROM Book book
+                        WHERE book.id = :bookId
+                        """)
+        Optional<BookRating> findRatingById(@Param("bookId") Integer bookId);
+
+        @Modifying
+        @Query("""
+                        UPDATE Book book
+                        SET book.rating.count = book.rating.count + 1,
+                        book.rating.sum = book.rating.sum + :note,
+                        book.rating.stars0 = book.rating.stars0 + CASE WHEN :stars = 0 THEN 1 ELSE 0 END,
+                        book.rating.stars1 = book.rating.stars1 + CASE WHEN :stars = 1 THEN 1 ELSE 0 END,
+                        book.rating.stars2 = book.rating.stars2 + CASE WHEN :stars = 2 THEN 1 ELSE 0 END,
+                        book.rating.stars3 = book.rating.stars3 + CASE WHEN :stars = 3 THEN 1 ELSE 0 END,
+                        book.rating.stars4 = book.rating.stars4 + CASE WHEN :stars = 4 THEN 1 ELSE 0 END,
+                        book.rating.stars5 = book.rating.stars5 + CASE WHEN :stars = 5 THEN 1 ELSE 0 END
+                        WHERE book.id = :bookId
+                        """)
+        int addRating(@Param("bookId") Integer bookId, @Param("note") double note, @Param("stars") int stars);
+
+        /**
+         * Locks the next books of the rating reconciliation, in id order like every batch, so that
+         * the feedbacks saved meanwhile wait for the batch to commit before counting themselves.
+         *
+         * @return the ids of the locked books
+         */
+        @Query(value = """
+                        SELECT id
+                        FROM book
+                        WHERE id > :afterId
+                        ORDER BY id
+                        LIMIT :limit
+                        FOR UPDATE
+                        """, nativeQuery = true)
+        List<Integer> lockBooksForReconciliation(@Param("afterId") long afterId, @Param("limit") int limit);
+
+        /**
+         * Recomputes the rating counters of the books of an id range, already locked, from their
+         * feedbacks, bucketed like {@link BookRating#toStars(double)}. Only the books whose counters
+         * drifted are written.
+         *
+         * @return the number of repaired books
+         */
+        @Modifying
+        @Query(value = """
+                        UPDATE book SET
+                        rating_count = rating.count,
+                        rating_sum = rating.sum,
+                        rating_stars0 = rating.stars0,
+                        rating_stars1 = rating.stars1,
+                        rating_stars2 = rating.stars2,
+                        rating_stars3 = rating.stars3,
+                        rating_stars4 = rating.stars4,
+                        rating_stars5 = rating.stars5
+                        FROM (
+                            SELECT b.id AS book_id,
+                                   count(f.note) AS count,
+                                   coalesce(sum(f.note), 0) AS sum,
+                                   count(*) FILTER (WHERE f.note < 1) AS stars0,
+                                   count(*) FILTER (WHERE f.note >= 1 AND f.note < 2) AS stars1,
+                                   count(*) FILTER (WHERE f.note >= 2 AND f.note < 3) AS stars2,
+                                   count(*) FILTER (WHERE f.note >= 3 AND f.note < 4) AS stars3,
+                                   count(*) FILTER (WHERE f.note >= 4 AND f.note < 5) AS stars4,
+                                   count(*) FILTER (WHERE f.note >= 5) AS stars5
+                            FROM book b
+                            LEFT JOIN feedback f ON f.book_id = b.id
+                            WHERE b.id BETWEEN :fromId AND :toId
+                            GROUP BY b.id
+                        ) rating
+                        WHERE book.id = rating.book_id
+                        AND (book.rating_count, book.rating_sum, book.rating_stars0, book.rating_stars1,
+                             book.rating_stars2, book.rating_stars3, book.rating_stars4, book.rating_stars5)
+                            IS DISTINCT FROM (rating.count, rating.sum, rating.stars0, rating.stars1,
+                             rating.stars2, rating.stars3, rating.stars4, rating.stars5)
+                        """, nativeQuery = true)
+        int reconcileRatings(@Param("fromId") Integer fromId, @Param("toId") Integer toId);
 
 }
@@ -19,9 +19,10 @@ public class BookResponse {
     private String isbn;
     private String synopsis;
     private String owner;
-    private byte[] cover;
+    private String coverUrl;
     private double rate;
     private boolean archived;
     private boolean shareable;
+    private boolean available;
 
 }
@@ -1,139 +1,338 @@
 package com.fmahadybd.book_network_api_service.book;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.core.io.Resource;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.data.domain.Sort;
 
+import com.fmahadybd.book_network_api_service.common.ContentVersion;
+import com.fmahadybd.book_network_api_service.common.EntityIdAllocator;
+import com.fmahadybd.book_network_api_service.common.PageCursor;
 import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalCounter;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
 import com.fmahadybd.book_network_api_service.exception.OperationNotPermittedException;
 import com.fmahadybd.book_network_api_service.file.FileStorageService;
+import com.fmahadybd.book_network_api_service.file.CoverCache;
 import com.fmahadybd.book_network_api_service.hostory.BookTransactionHistory;
 import com.fmahadybd.book_network_api_service.hostory.BookTransactionHistoryRepository;
-import com.fmahadybd.book_network_api_service.user.User;
+import com.fmahadybd.book_network_api_service.security.UserPrincipal;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import static com.fmahadybd.book_network_api_service.book.BookSpecification.withOwnerId;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class BookService {
 
+  // Order of the pages, the id breaking the ties of the books imported with the same timestamp
+  private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdDate", "id");
+
   private final BookRepository bookRepository;
   private final BookMapper bookMapper;
   private final BookTransactionHistoryRepository transactionHistoryRepository;
   private final FileStorageService fileStorageService;
+  private final CoverCache coverCache;
+  private final TotalCounter totalCounter;
+  private final BookSuggestionIndex suggestionIndex;
+  private final CatalogSnapshot catalogSnapshot;
+  private final EntityIdAllocator idAllocator;
+  private final UserRepository userRepository;
 
   public Integer save(BookRequest request, Authentication connectedUser) {
-    User user = ((User) connectedUser.getPrincipal());
+    UserPrincipal user = UserPrincipal.of(connectedUser);
     Book book = bookMapper.toBook(request);
-    book.setOwner(user);
-    return bookRepository.save(book).getId();
+    book.setOwner(userRepository.getReferenceById(user.id()));
+    Book savedBook = bookRepository.save(book);
+    suggestionIndex.update(savedBook);
+    catalogSnapshot.invalidate();
+    return savedBook.getId();
   }
 
+  @Transactional(readOnly = true)
   public BookResponse findById(Integer bookId) {
     return bookRepository.findById(bookId)
         .map(bookMapper::toBookResponse)
         .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
   }
 
-  public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
-    User user = ((User) connectedUser.getPrincipal());
-    Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-    Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
-    List<BookResponse> booksResponse = books.stream()
-        .map(bookMapper::toBookResponse)
+  /**
+   * @return the entity tag of the book details, read without loading the book
+   */
+  @Transactional(readOnly = true)
+  public String findBookETag(Integer bookId) {
+    return bookRepository.findBookVersionById(bookId).toETag("book", bookId);
+  }
+
+  @Transactional(readOnly = true)
+  public RatingDistributionResponse findRatingDistribution(Integer bookId) {
+    BookRating rating = bookRepository.findRatingById(bookId)
+        .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+    return RatingDistributionResponse.builder()
+        .bookId(bookId)
+        .rate(rating.getRate())
+        .count(rating.getCount())
+        .distribution(rating.getDistribution())
+        .build();
+  }
+
+  /**
+   * @param availableOnly only lists the books that are not on loan
+   */
+  @Transactional(readOnly = true)
+  public PageResponse<BookResponse> findAllBooks(int page, int size, TotalMode total, boolean availableOnly,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+    Slice<BookSummary> books = catalogSnapshot.findPage(pageable, availableOnly, user.id())
+        .orElseGet(() -> availableOnly
+            ? bookRepository.findAllAvailableBooks(pageable, user.id())
+            : bookRepository.findAllDisplayableBooks(pageable, user.id()));
+    long totalElements;
+    if (books instanceof Page<BookSummary> catalogPage) {
+      totalElements = catalogPage.getTotalElements();
+    } else if (availableOnly) {
+      totalElements = totalCounter.count(total, books, "available-books", user.id(),
+          () -> bookRepository.countAvailableBooks(user.id()));
+    } else {
+      totalElements = totalCounter.count(total, books, "displayable-books", user.id(),
+          () -> bookRepository.countDisplayableBooks(user.id()));
+    }
+    return PageResponse.ofSlice(books, totalElements, bookMapper::toBookResponse);
+  }
+
+  /**
+   * @return the entity tag shared by every page of the displayable books, which changes as soon as
+   *         one of them is added, updated, archived or no longer shared, and with the ratings once the
+   *         catalog snapshot expired. It is scoped to the user, whose own books are left out.
+   */
+  public String findAllBooksETag(Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    return ContentVersion.eTagOf("displayable-books", catalogSnapshot.version(), user.id());
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BookResponse> findAllBooksAfter(String cursor, int size, boolean availableOnly,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    PageCursor pageCursor = PageCursor.decode(cursor);
+    List<BookSummary> books = catalogSnapshot.findAfter(pageCursor, size + 1, availableOnly, user.id())
+        .orElseGet(() -> availableOnly
+            ? bookRepository.findAvailableBooksAfter(user.id(), pageCursor.createdDate(), pageCursor.id(),
+                PageRequest.of(0, size + 1))
+            : bookRepository.findDisplayableBooksAfter(user.id(), pageCursor.createdDate(), pageCursor.id(),
+                PageRequest.of(0, size + 1)));
+    return PageResponse.ofCursor(books, size, pageCursor,
+        book -> new PageCursor(book.createdDate(), book.id()), bookMapper::toBookResponse);
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, TotalMode total,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+    Slice<BookSummary> books = bookRepository.findAllByOwnerId(pageable, user.id());
+    long totalElements = totalCounter.count(total, books, "owner-books", user.id(),
+        () -> bookRepository.countByOwnerId(user.id()));
+    return PageResponse.ofSlice(books, totalElements, bookMapper::toBookResponse);
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BookResponse> findAllBooksByOwnerAfter(String cursor, int size, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    PageCursor pageCursor = PageCursor.decode(cursor);
+    List<BookSummary> books = bookRepository.findBooksByOwnerIdAfter(user.id(), pageCursor.createdDate(),
+        pageCursor.id(), PageRequest.of(0, size + 1));
+    return PageResponse.ofCursor(books, size, pageCursor,
+        book -> new PageCursor(book.createdDate(), book.id()), bookMapper::toBookResponse);
+  }
+
+  /**
+   * Ranks the displayable books against a web search style query (quoted phrases,
+   * {@code or}, {@code -excluded}) using the full-text index of the catalog.
+   */
+  @Transactional(readOnly = true)
+  public PageResponse<BookResponse> searchBooks(String query, int page, int size, TotalMode total,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Slice<Integer> bookIds = bookRepository.searchDisplayableBookIds(query, user.id(), PageRequest.of(page, size));
+    Map<Integer, BookSummary> books = bookRepository.findAllSummariesByIdIn(bookIds.getContent()).stream()
+        .collect(Collectors.toMap(BookSummary::id, Function.identity()));
+    // A book deleted between the two queries has no summary, and is left out of the page
+    List<BookSummary> found = bookIds.stream()
+        .map(books::get)
+        .filter(Objects::nonNull)
         .toList();
-    return new PageResponse<>(
-        booksResponse,
-        books.getNumber(),
-        books.getSize(),
-        books.getTotalElements(),
-        books.getTotalPages(),
-        books.isFirst(),
-        books.isLast());
-  }
-
-  public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
-    User user = ((User) connectedUser.getPrincipal());
-    Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-    Page<Book> books = bookRepository.findAll(withOwnerId(user.getId()), pageable);
-    List<BookResponse> booksResponse = books.stream()
-        .map(bookMapper::toBookResponse)
+    long totalElements = totalCounter.count(total, bookIds, "search-books:" + query, user.id(),
+        () -> bookRepository.countSearchDisplayableBooks(query, user.id()));
+    return PageResponse.ofSlice(new SliceImpl<>(found, bookIds.getPageable(), bookIds.hasNext()), totalElements,
+        bookMapper::toBookResponse);
+  }
+
+  public List<BookSuggestionResponse> suggestBooks(String query, int size, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    return suggestionIndex.suggest(query, size, user.id()).stream()
+        .map(bookMapper::toBookSuggestionResponse)
         .toList();
-    return new PageResponse<>(
-        booksResponse,
-        books.getNumber(),
-        books.getSize(),
-        books.getTotalElements(),
-        books.getTotalPages(),
-        books.isFirst(),
-        books.isLast());
   }
 
   public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
     Book book = bookRepository.findById(bookId)
         .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-    User user = ((User) connectedUser.getPrincipal());
-    if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    if (!Objects.equals(book.getOwner().getId(), user.id())) {
       throw new OperationNotPermittedException("You cannot update others books shareable status");
     }
     book.setShareable(!book.isShareable());
     bookRepository.save(book);
+    suggestionIndex.update(book);
+    catalogSnapshot.invalidate();
     return bookId;
   }
 
   public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
     Book book = bookRepository.findById(bookId)
         .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-    User user = ((User) connectedUser.getPrincipal());
-    if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    if (!Objects.equals(book.getOwner().getId(), user.id())) {
       throw new OperationNotPermittedException("You cannot update others books archived status");
     }
     book.setArchived(!book.isArchived());
     bookRepository.save(book);
+    suggestionIndex.update(book);
+    catalogSnapshot.invalidate();
     return bookId;
   }
 
-  public Integer borrowBook(Integer bookId, Authentication connectedUser) {
-    Book book = bookRepository.findById(bookId)
-        .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-    if (book.isArchived() || !book.isShareable()) {
-      throw new OperationNotPermittedException(
-          "The requested book cannot be borrowed since it is archived or not shareable");
+  public List<BulkResult> updateShareableStatuses(List<Integer> bookIds, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Map<Integer, BulkOutcome> outcomes = checkOwnership(bookIds, user.id(), false);
+    List<Integer> updatedBookIds = withOutcome(outcomes, BulkOutcome.UPDATED);
+    if (!updatedBookIds.isEmpty()) {
+      bookRepository.toggleShareable(updatedBookIds, user.id(), LocalDateTime.now());
+      suggestionIndex.refresh(updatedBookIds);
+      catalogSnapshot.invalidate();
     }
-    User user = ((User) connectedUser.getPrincipal());
-    if (Objects.equals(book.getOwner().getId(), user.getId())) {
-      throw new OperationNotPermittedException("You cannot borrow your own book");
+    return toBulkResults(outcomes);
+  }
+
+  public List<BulkResult> updateArchivedStatuses(List<Integer> bookIds, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Map<Integer, BulkOutcome> outcomes = checkOwnership(bookIds, user.id(), false);
+    List<Integer> updatedBookIds = withOutcome(outcomes, BulkOutcome.UPDATED);
+    if (!updatedBookIds.isEmpty()) {
+      bookRepository.toggleArchived(updatedBookIds, user.id(), LocalDateTime.now());
+      suggestionIndex.refresh(updatedBookIds);
+      catalogSnapshot.invalidate();
     }
-    final boolean isAlreadyBorrowedByUser = transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId());
-    if (isAlreadyBorrowedByUser) {
-      throw new OperationNotPermittedException(
-          "You already borrowed this book and it is still not returned or the return is not approved by the owner");
+    return toBulkResults(outcomes);
+  }
+
+  public List<BulkResult> approveReturnBorrowedBooks(List<Integer> bookIds, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Map<Integer, BulkOutcome> outcomes = checkOwnership(bookIds, user.id(), true);
+    List<Integer> ownedBookIds = withOutcome(outcomes, BulkOutcome.UPDATED);
+    if (!ownedBookIds.isEmpty()) {
+      Set<Integer> returnedBookIds = new HashSet<>(transactionHistoryRepository.findReturnedBookIds(ownedBookIds));
+      ownedBookIds.stream()
+          .filter(bookId -> !returnedBookIds.contains(bookId))
+          .forEach(bookId -> outcomes.put(bookId, BulkOutcome.NOT_RETURNED));
+      if (!returnedBookIds.isEmpty()) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionHistoryRepository.approveReturns(returnedBookIds, user.id(), now);
+        bookRepository.markAvailable(returnedBookIds, user.id(), now);
+        catalogSnapshot.invalidate();
+      }
     }
+    return toBulkResults(outcomes);
+  }
 
-    final boolean isAlreadyBorrowedByOtherUser = transactionHistoryRepository.isAlreadyBorrowed(bookId);
-    if (isAlreadyBorrowedByOtherUser) {
-      throw new OperationNotPermittedException("Te requested book is already borrowed");
+  /**
+   * Checks the owner, and optionally the status, of all the requested books with a single query.
+   *
+   * @return the outcome per requested book, in request order, {@link BulkOutcome#UPDATED} for
+   *         the books the operation can be applied to
+   */
+  private Map<Integer, BulkOutcome> checkOwnership(List<Integer> bookIds, Integer userId, boolean displayableOnly) {
+    Map<Integer, BulkOutcome> outcomes = new LinkedHashMap<>();
+    bookIds.forEach(bookId -> outcomes.put(bookId, BulkOutcome.NOT_FOUND));
+    for (BookOwnership ownership : bookRepository.findOwnershipsByIdIn(outcomes.keySet())) {
+      BulkOutcome outcome;
+      if (!Objects.equals(ownership.ownerId(), userId)) {
+        outcome = BulkOutcome.NOT_OWNER;
+      } else if (displayableOnly && (ownership.archived() || !ownership.shareable())) {
+        outcome = BulkOutcome.NOT_PERMITTED;
+      } else {
+        outcome = BulkOutcome.UPDATED;
+      }
+      outcomes.put(ownership.bookId(), outcome);
     }
+    return outcomes;
+  }
 
-    BookTransactionHistory bookTransactionHistory = BookTransactionHistory.builder()
-        .user(user)
-        .book(book)
-        .returned(false)
-        .returnApproved(false)
-        .build();
-    return transactionHistoryRepository.save(bookTransactionHistory).getId();
+  private static List<Integer> withOutcome(Map<Integer, BulkOutcome> outcomes, BulkOutcome outcome) {
+    return outcomes.entrySet().stream()
+        .filter(entry -> entry.getValue() == outcome)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
 
+  private static List<BulkResult> toBulkResults(Map<Integer, BulkOutcome> outcomes) {
+    return outcomes.entrySet().stream()
+        .map(entry -> new BulkResult(entry.getKey(), entry.getValue()))
+        .toList();
+  }
+
+  /**
+   * Borrows the book with a single conditional insert, which is enough to decide between concurrent
+   * borrowers. The reason of a refusal is only looked up when nothing was inserted.
+   */
+  public Integer borrowBook(Integer bookId, Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Integer historyId = idAllocator.nextId(BookTransactionHistory.class);
+    if (transactionHistoryRepository.borrow(historyId, bookId, user.id(), LocalDateTime.now()) == 0) {
+      throw borrowRefusal(bookId, user.id());
+    }
+    catalogSnapshot.invalidate();
+    return historyId;
+  }
+
+  private OperationNotPermittedException borrowRefusal(Integer bookId, Integer userId) {
+    BookOwnership book = bookRepository.findOwnershipsByIdIn(List.of(bookId)).stream()
+        .findFirst()
+        .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
+    if (book.archived() || !book.shareable()) {
+      return new OperationNotPermittedException(
+          "The requested book cannot be borrowed since it is archived or not shareable");
+    }
+    if (Objects.equals(book.ownerId(), userId)) {
+      return new OperationNotPermittedException("You cannot borrow your own book");
+    }
+    if (transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, userId)) {
+      return new OperationNotPermittedException(
+          "You already borrowed this book and it is still not returned or the return is not approved by the owner");
+    }
+    return new OperationNotPermittedException("Te requested book is already borrowed");
   }
 
   public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
@@ -142,13 +341,13 @@ public class BookService {
     if (book.isArchived() || !book.isShareable()) {
       throw new OperationNotPermittedException("The requested book is archived or not shareable");
     }
-    User user = ((User) connectedUser.getPrincipal());
-    if (Objects.equals(book.getOwner().getId(), user.getId())) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    if (Objects.equals(book.getOwner().getId(), user.id())) {
       throw new OperationNotPermittedException("You cannot borrow or return your own book");
     }
 
     BookTransactionHistory bookTransactionHistory = transactionHistoryRepository
-        .findByBookIdAndUserId(bookId, user.getId())
+        .findByBookIdAndUserId(bookId, user.id())
         .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
 
     bookTransactionHistory.setReturned(true);
@@ -161,63 +360,107 @@ public class BookService {
     if (book.isArchived() || !book.isShareable()) {
       throw new OperationNotPermittedException("The requested book is archived or not shareable");
     }
-    User user = ((User) connectedUser.getPrincipal());
-    if (!Objects.equals(book.getOwner().getId(), user.getId())) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    if (!Objects.equals(book.getOwner().getId(), user.id())) {
       throw new OperationNotPermittedException("You cannot approve the return of a book you do not own");
     }
 
     BookTransactionHistory bookTransactionHistory = transactionHistoryRepository
-        .findByBookIdAndUserId(bookId, user.getId())
+        .findByBookIdAndOwnerId(bookId, user.id())
         .orElseThrow(
             () -> new OperationNotPermittedException("The book is not returned yet. You cannot approve its return"));
 
-    bookTransactionHistory.setReturnApproved(true);
-    return transactionHistoryRepository.save(bookTransactionHistory).getId();
+    LocalDateTime now = LocalDateTime.now();
+    transactionHistoryRepository.approveReturns(List.of(bookId), user.id(), now);
+    bookRepository.markAvailable(List.of(bookId), user.id(), now);
+    catalogSnapshot.invalidate();
+    return bookTransactionHistory.getId();
   }
 
+  /**
+   * Stores the picture without holding a database connection, then points the book to it with a
+   * single targeted update, so that the changes committed to the book during the upload are kept.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId) {
-    Book book = bookRepository.findById(bookId)
+    BookOwnership ownership = bookRepository.findOwnershipsByIdIn(List.of(bookId)).stream()
+        .findFirst()
         .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
-    User user = ((User) connectedUser.getPrincipal());
-    var profilePicture = fileStorageService.saveFile(file, bookId, user.getId());
-    book.setBookCover(profilePicture);
-    bookRepository.save(book);
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    if (!Objects.equals(ownership.ownerId(), user.id())) {
+      throw new OperationNotPermittedException("You cannot update the cover of others books");
+    }
+    var profilePicture = fileStorageService.saveFile(file, bookId, user.id());
+    String previousCover = bookRepository.findBookCoverById(bookId).orElse(null);
+    if (bookRepository.updateBookCover(bookId, profilePicture, user.id(), LocalDateTime.now()) == 0) {
+      // Deleted or given away during the upload: nothing points to the stored picture
+      fileStorageService.deleteFile(profilePicture);
+      throw new EntityNotFoundException("No book found with ID:: " + bookId);
+    }
+    coverCache.invalidate(previousCover);
+    catalogSnapshot.invalidate();
   }
 
-  public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, Authentication connectedUser) {
-    User user = ((User) connectedUser.getPrincipal());
-    Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-    Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository.findAllBorrowedBooks(pageable,
-        user.getId());
-    List<BorrowedBookResponse> booksResponse = allBorrowedBooks.stream()
-        .map(bookMapper::toBorrowedBookResponse)
-        .toList();
-    return new PageResponse<>(
-        booksResponse,
-        allBorrowedBooks.getNumber(),
-        allBorrowedBooks.getSize(),
-        allBorrowedBooks.getTotalElements(),
-        allBorrowedBooks.getTotalPages(),
-        allBorrowedBooks.isFirst(),
-        allBorrowedBooks.isLast());
-  }
-
-  public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
-    User user = ((User) connectedUser.getPrincipal());
-    Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-    Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository.findAllReturnedBooks(pageable,
-        user.getId());
-    List<BorrowedBookResponse> booksResponse = allBorrowedBooks.stream()
-        .map(bookMapper::toBorrowedBookResponse)
-        .toList();
-    return new PageResponse<>(
-        booksResponse,
-        allBorrowedBooks.getNumber(),
-        allBorrowedBooks.getSize(),
-        allBorrowedBooks.getTotalElements(),
-        allBorrowedBooks.getTotalPages(),
-        allBorrowedBooks.isFirst(),
-        allBorrowedBooks.isLast());
+  /**
+   * Reads the cover path in the repository's own transaction, so that the connection is back in the
+   * pool before the picture is read from disk.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public BookCover findBookCover(Integer bookId) {
+    String bookCover = bookRepository.findBookCoverById(bookId)
+        .orElseThrow(() -> new EntityNotFoundException("No cover found for book with ID:: " + bookId));
+    Resource cover = coverCache.get(bookCover);
+    if (cover == null) {
+      throw new EntityNotFoundException("No cover found for book with ID:: " + bookId);
+    }
+    return new BookCover(cover, bookMapper.toCoverVersion(bookCover));
   }
 
+  @Transactional(readOnly = true)
+  public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, TotalMode total,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+    Slice<BorrowedBookSummary> allBorrowedBooks = transactionHistoryRepository.findAllBorrowedBooks(pageable,
+        user.id());
+    long totalElements = totalCounter.count(total, allBorrowedBooks, "borrowed-books", user.id(),
+        () -> transactionHistoryRepository.countBorrowedBooks(user.id()));
+    return PageResponse.ofSlice(allBorrowedBooks, totalElements, bookMapper::toBorrowedBookResponse);
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BorrowedBookResponse> findAllBorrowedBooksAfter(String cursor, int size,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    PageCursor pageCursor = PageCursor.decode(cursor);
+    List<BorrowedBookSummary> allBorrowedBooks = transactionHistoryRepository.findBorrowedBooksAfter(user.id(),
+        pageCursor.createdDate(), pageCursor.id(), PageRequest.of(0, size + 1));
+    return PageResponse.ofCursor(allBorrowedBooks, size, pageCursor,
+        history -> new PageCursor(history.createdDate(), history.historyId()), bookMapper::toBorrowedBookResponse);
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, TotalMode total,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    Pageable pageable = PageRequest.of(page, size, NEWEST_FIRST);
+    Slice<BorrowedBookSummary> allBorrowedBooks = transactionHistoryRepository.findAllReturnedBooks(pageable,
+        user.id());
+    long totalElements = totalCounter.count(total, allBorrowedBooks, "returned-books", user.id(),
+        () -> transactionHistoryRepository.countReturnedBooks(user.id()));
+    return PageResponse.ofSlice(allBorrowedBooks, totalElements, bookMapper::toBorrowedBookResponse);
+  }
+
+  @Transactional(readOnly = true)
+  public PageResponse<BorrowedBookResponse> findAllReturnedBooksAfter(String cursor, int size,
+      Authentication connectedUser) {
+    UserPrincipal user = UserPrincipal.of(connectedUser);
+    PageCursor pageCursor = PageCursor.decode(cursor);
+    List<BorrowedBookSummary> allBorrowedBooks = transactionHistoryRepository.findReturnedBooksAfter(user.id(),
+        pageCursor.createdDate(), pageCursor.id(), PageRequest.of(0, size + 1));
+    return PageResponse.ofCursor(allBorrowedBooks, size, pageCursor,
+        history -> new PageCursor(history.createdDate(), history.historyId()), bookMapper::toBorrowedBookResponse);
+  }
+
+
 }
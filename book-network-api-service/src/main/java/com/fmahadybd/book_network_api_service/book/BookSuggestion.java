@@ -0,0 +1,11 @@
+package com.fmahadybd.book_network_api_service.book;
+
+/**
+ * Fields of a displayable book held by the {@link BookSuggestionIndex}.
+ */
+public record BookSuggestion(
+        Integer id,
+        String title,
+        String authorName,
+        Integer ownerId) {
+}
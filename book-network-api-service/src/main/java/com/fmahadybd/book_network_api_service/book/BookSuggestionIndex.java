@@ -0,0 +1,265 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import com.fmahadybd.book_network_api_service.common.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over the title and author name of the displayable books, answering
+ * search-as-you-type requests without querying the database.
+ * <p>
+ * Every word of a title or author name is normalized (lower case, no accents) and kept in a sorted
+ * map with the sorted ids of the books containing it, so that the books matching a prefix are read
+ * from a contiguous range of terms. Readers never lock: postings are immutable arrays replaced on
+ * write, and writers are serialized since books change far less often than users type.
+ */
+@Slf4j
+@Component
+public class BookSuggestionIndex implements MeterBinder {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    // Rough per-object sizes on a 64-bit JVM with compressed oops, used for the memory estimate
+    private static final long TERM_OVERHEAD = 40 + 16 + 32;
+    private static final long BOOK_OVERHEAD = 32 + 48 + 16;
+
+    private final BookRepository bookRepository;
+    private final ConcurrentSkipListMap<String, int[]> postings = new ConcurrentSkipListMap<>();
+    private final Map<Integer, IndexedBook> books = new ConcurrentHashMap<>();
+    // Kept up to date by the serialized writers, so that reading it never walks the index
+    private volatile long estimatedSize;
+
+    public BookSuggestionIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        apply(List.of(), bookRepository.findAllDisplayableSuggestions());
+        log.info("Indexed {} books for suggestions ({} terms, ~{} bytes)", books.size(), postings.size(), estimatedSize());
+    }
+
+    /**
+     * Indexes the book when it is displayable and removes it otherwise. Inside a transaction the
+     * change is applied once the transaction committed, so that rolled back writes never show up.
+     */
+    public void update(Book book) {
+        update(List.of(book));
+    }
+
+    /**
+     * Same as {@link #update(Book)} for many books at once, merging each word's postings only once.
+     */
+    public void update(Collection<Book> changedBooks) {
+        List<Integer> bookIds = changedBooks.stream().map(Book::getId).toList();
+        List<BookSuggestion> suggestions = changedBooks.stream()
+                .filter(book -> !book.isArchived() && book.isShareable())
+                .map(book -> new BookSuggestion(book.getId(), book.getTitle(), book.getAuthorName(),
+                        book.getOwner().getId()))
+                .toList();
+        AfterCommit.run(() -> apply(bookIds, suggestions));
+    }
+
+    /**
+     * Reads the given books again, typically after a bulk update, and indexes the displayable ones
+     * once the transaction committed.
+     */
+    public void refresh(Collection<Integer> bookIds) {
+        List<BookSuggestion> suggestions = bookRepository.findDisplayableSuggestionsByIdIn(bookIds);
+        List<Integer> removedBookIds = List.copyOf(bookIds);
+        AfterCommit.run(() -> apply(removedBookIds, suggestions));
+    }
+
+    /**
+     * Returns the displayable books not owned by the given user whose title or author name has a
+     * word starting with every word of the query, the last one being possibly incomplete.
+     */
+    public List<BookSuggestion> suggest(String query, int size, Integer userId) {
+        String[] words = normalize(query);
+        if (words.length == 0 || size <= 0) {
+            return List.of();
+        }
+        String prefix = words[words.length - 1];
+        String[] previousWords = Arrays.copyOf(words, words.length - 1);
+        int limit = Math.min(size, MAX_SUGGESTIONS);
+        Set<Integer> seen = new HashSet<>();
+        List<BookSuggestion> suggestions = new ArrayList<>(limit);
+        for (int[] bookIds : range(prefix).values()) {
+            for (int bookId : bookIds) {
+                if (!seen.add(bookId)) {
+                    continue;
+                }
+                IndexedBook book = books.get(bookId);
+                if (book != null && !Objects.equals(book.suggestion().ownerId(), userId)
+                        && book.matchesAll(previousWords)) {
+                    suggestions.add(book.suggestion());
+                    if (suggestions.size() == limit) {
+                        return suggestions;
+                    }
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return estimated heap size in bytes of the terms, postings and indexed books
+     */
+    public long estimatedSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        Gauge.builder("book.suggestions.terms", postings, Map::size)
+                .description("Number of distinct words in the suggestion index")
+                .register(registry);
+        Gauge.builder("book.suggestions.books", books, Map::size)
+                .description("Number of books in the suggestion index")
+                .register(registry);
+        Gauge.builder("book.suggestions.bytes", this, BookSuggestionIndex::estimatedSize)
+                .description("Estimated heap size of the suggestion index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private synchronized void apply(Collection<Integer> removedBookIds, Collection<BookSuggestion> addedBooks) {
+        long size = estimatedSize;
+        Map<String, Set<Integer>> removed = new HashMap<>();
+        for (Integer bookId : removedBookIds) {
+            IndexedBook book = books.remove(bookId);
+            if (book != null) {
+                size -= sizeOf(book);
+                for (String term : book.terms()) {
+                    removed.computeIfAbsent(term, key -> new HashSet<>()).add(bookId);
+                }
+            }
+        }
+        Map<String, List<Integer>> added = new HashMap<>();
+        for (BookSuggestion suggestion : addedBooks) {
+            Set<String> words = new LinkedHashSet<>();
+            words.addAll(Arrays.asList(normalize(suggestion.title())));
+            words.addAll(Arrays.asList(normalize(suggestion.authorName())));
+            String[] terms = words.toArray(String[]::new);
+            IndexedBook book = new IndexedBook(suggestion, terms);
+            IndexedBook previous = books.put(suggestion.id(), book);
+            size += sizeOf(book) - (previous == null ? 0 : sizeOf(previous));
+            for (String term : terms) {
+                added.computeIfAbsent(term, key -> new ArrayList<>()).add(suggestion.id());
+            }
+        }
+        Set<String> terms = new HashSet<>(removed.keySet());
+        terms.addAll(added.keySet());
+        for (String term : terms) {
+            int[] addedIds = added.getOrDefault(term, List.of()).stream()
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            int[] current = postings.get(term);
+            int[] bookIds = merge(current == null ? new int[0] : current, removed.getOrDefault(term, Set.of()), addedIds);
+            if (current != null) {
+                size -= sizeOf(term, current);
+            }
+            if (bookIds.length == 0) {
+                postings.remove(term);
+            } else {
+                postings.put(term, bookIds);
+                size += sizeOf(term, bookIds);
+            }
+        }
+        estimatedSize = size;
+    }
+
+    private static long sizeOf(String term, int[] bookIds) {
+        return TERM_OVERHEAD + 2L * term.length() + 16 + 4L * bookIds.length;
+    }
+
+    private static long sizeOf(IndexedBook book) {
+        return BOOK_OVERHEAD
+                + 40 + 2L * length(book.suggestion().title())
+                + 40 + 2L * length(book.suggestion().authorName())
+                + 16 + 4L * book.terms().length;
+    }
+
+    /**
+     * Merges two sorted arrays of book ids, dropping the removed ids of the current postings.
+     */
+    private static int[] merge(int[] current, Set<Integer> removed, int[] added) {
+        int[] merged = new int[current.length + added.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.length || j < added.length) {
+            if (j == added.length || (i < current.length && current[i] < added[j])) {
+                int bookId = current[i++];
+                if (!removed.contains(bookId)) {
+                    merged[size++] = bookId;
+                }
+            } else {
+                if (i < current.length && current[i] == added[j]) {
+                    i++;
+                }
+                merged[size++] = added[j++];
+            }
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    private ConcurrentNavigableMap<String, int[]> range(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    static String[] normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(WORD_SEPARATOR.split(folded))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    private record IndexedBook(BookSuggestion suggestion, String[] terms) {
+
+        boolean matchesAll(String[] prefixes) {
+            for (String prefix : prefixes) {
+                if (Arrays.stream(terms).noneMatch(term -> term.startsWith(prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a book and its owner name, read by the list queries in a
+ * single statement instead of loading the entities and their associations.
+ */
+public record BookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        Integer ownerId,
+        String ownerFirstname,
+        String ownerLastname,
+        String bookCover,
+        BookRating rating,
+        boolean archived,
+        boolean shareable,
+        boolean available,
+        LocalDateTime createdDate) {
+}
@@ -0,0 +1,19 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a transaction history row and its book, read by the
+ * borrowed and returned list queries in a single statement.
+ */
+public record BorrowedBookSummary(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        BookRating rating,
+        boolean returned,
+        boolean returnApproved,
+        Integer historyId,
+        LocalDateTime createdDate) {
+}
@@ -0,0 +1,18 @@
+package com.fmahadybd.book_network_api_service.book;
+
+/**
+ * Outcome of a bulk operation for one of the requested books.
+ */
+public enum BulkOutcome {
+    UPDATED,
+    NOT_FOUND,
+    NOT_OWNER,
+    /**
+     * The book is archived or not shareable.
+     */
+    NOT_PERMITTED,
+    /**
+     * The book has no return waiting for approval.
+     */
+    NOT_RETURNED
+}
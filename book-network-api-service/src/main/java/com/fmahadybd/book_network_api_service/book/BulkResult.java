@@ -0,0 +1,19 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkResult {
+
+    private Integer bookId;
+    private BulkOutcome outcome;
+
+}
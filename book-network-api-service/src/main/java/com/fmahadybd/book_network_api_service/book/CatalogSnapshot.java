@@ -0,0 +1,166 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import com.fmahadybd.book_network_api_service.common.AfterCommit;
+import com.fmahadybd.book_network_api_service.common.CacheLoads;
+import com.fmahadybd.book_network_api_service.common.PageCursor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot of the latest displayable books shared by all users, so that browsing the catalog does
+ * not run a query per user and per page.
+ * <p>
+ * The snapshot holds the same rows for everyone, and the books of the connected user are filtered
+ * out when a page is cut from it. It is read once when first needed, dropped after every change of
+ * a book, and expires after a short time to live so that ratings and owner names catch up. Pages
+ * beyond the snapshot are left to the database.
+ * <p>
+ * Every snapshot read gets a new {@link #version()}, which validates the cached catalog pages of the
+ * clients without any query.
+ */
+@Component
+public class CatalogSnapshot implements MeterBinder {
+
+    private static final String KEY = "displayable-books";
+
+    private final BookRepository bookRepository;
+    private final int maxBooks;
+    private final AsyncCache<String, Snapshot> cache;
+    // Versions of different instances behind the same load balancer must never collide
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong versions = new AtomicLong();
+
+    public CatalogSnapshot(
+            BookRepository bookRepository,
+            @Value("${application.catalog.snapshot-size:1000}") int maxBooks,
+            @Value("${application.catalog.ttl:30s}") Duration ttl
+    ) {
+        this.bookRepository = bookRepository;
+        this.maxBooks = maxBooks;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Cuts a page of the displayable books not owned by the user, optionally only the available
+     * ones, out of the snapshot.
+     *
+     * @return the page, as a {@link org.springframework.data.domain.Page} when the snapshot holds
+     *         the whole catalog and the total is known, or empty when the page goes beyond the snapshot
+     */
+    public Optional<Slice<BookSummary>> findPage(Pageable pageable, boolean availableOnly, Integer userId) {
+        if (maxBooks <= 0) {
+            return Optional.empty();
+        }
+        Snapshot snapshot = snapshot();
+        long offset = pageable.getOffset();
+        List<BookSummary> content = new ArrayList<>(pageable.getPageSize());
+        long visible = 0;
+        for (BookSummary book : snapshot.books()) {
+            if (!isVisible(book, availableOnly, userId)) {
+                continue;
+            }
+            if (visible >= offset && content.size() < pageable.getPageSize()) {
+                content.add(book);
+            }
+            visible++;
+            if (!snapshot.complete() && visible > offset + pageable.getPageSize()) {
+                return Optional.of(new SliceImpl<>(content, pageable, true));
+            }
+        }
+        if (!snapshot.complete()) {
+            return Optional.empty();
+        }
+        return Optional.of(new PageImpl<>(content, pageable, visible));
+    }
+
+    /**
+     * Reads the displayable books not owned by the user, optionally only the available ones, that
+     * follow the cursor from the snapshot.
+     *
+     * @return at most {@code limit} books, or empty when they go beyond the snapshot
+     */
+    public Optional<List<BookSummary>> findAfter(PageCursor cursor, int limit, boolean availableOnly, Integer userId) {
+        if (maxBooks <= 0) {
+            return Optional.empty();
+        }
+        Snapshot snapshot = snapshot();
+        List<BookSummary> books = new ArrayList<>(limit);
+        for (BookSummary book : snapshot.books()) {
+            if (books.size() == limit) {
+                return Optional.of(books);
+            }
+            if (isVisible(book, availableOnly, userId) && isAfter(book, cursor)) {
+                books.add(book);
+            }
+        }
+        return books.size() == limit || snapshot.complete() ? Optional.of(books) : Optional.empty();
+    }
+
+    /**
+     * @return the version of the catalog, which changes with every book change, and at the latest
+     *         once the time to live elapsed, like the snapshot
+     */
+    public String version() {
+        return instanceId + ":" + snapshot().version();
+    }
+
+    /**
+     * Drops the snapshot once the current transaction committed.
+     */
+    public void invalidate() {
+        AfterCommit.run(cache.synchronous()::invalidateAll);
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "catalog");
+    }
+
+    private Snapshot snapshot() {
+        // Concurrent requests on an expired snapshot wait for a single query
+        return CacheLoads.getOrLoad(cache, KEY, () -> {
+            long version = versions.incrementAndGet();
+            if (maxBooks <= 0) {
+                // Only the version is kept, every page is read from the database
+                return new Snapshot(List.of(), false, version);
+            }
+            List<BookSummary> books = bookRepository.findLatestDisplayableBooks(PageRequest.of(0, maxBooks + 1));
+            boolean complete = books.size() <= maxBooks;
+            return new Snapshot(List.copyOf(complete ? books : books.subList(0, maxBooks)), complete, version);
+        });
+    }
+
+    private static boolean isVisible(BookSummary book, boolean availableOnly, Integer userId) {
+        return !Objects.equals(book.ownerId(), userId) && (book.available() || !availableOnly);
+    }
+
+    private static boolean isAfter(BookSummary book, PageCursor cursor) {
+        int comparison = book.createdDate().compareTo(cursor.createdDate());
+        return comparison < 0 || (comparison == 0 && book.id() < cursor.id());
+    }
+
+    private record Snapshot(List<BookSummary> books, boolean complete, long version) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RatingDistributionResponse {
+
+    private Integer bookId;
+    private double rate;
+    private long count;
+    private List<Long> distribution;
+}
@@ -0,0 +1,24 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class AfterCommit {
+
+    /**
+     * Runs the action once the current transaction committed, so that in-memory views never
+     * reflect rolled back writes, or right away when there is no transaction.
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over UUID keys.
+ * <p>
+ * {@link #mightContain(UUID)} never answers {@code false} for a key that was put, and answers
+ * {@code true} for a key that was not put with about the false positive rate the filter was sized
+ * for, as long as it holds no more than the expected number of keys. The bits are sized once: a
+ * filter that outgrew its expected insertions, or whose keys must be removed, is replaced by a new
+ * one.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(UUID key) {
+        long hash1 = mix(key.getMostSignificantBits());
+        long hash2 = mix(key.getLeastSignificantBits() ^ hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    public boolean mightContain(UUID key) {
+        long hash1 = mix(key.getMostSignificantBits());
+        long hash2 = mix(key.getLeastSignificantBits() ^ hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return size of the filter in bytes
+     */
+    public long byteSize() {
+        return bitCount / 8;
+    }
+
+    /**
+     * Final mix of MurmurHash3, so that every bit of the key affects every bit of the hash.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
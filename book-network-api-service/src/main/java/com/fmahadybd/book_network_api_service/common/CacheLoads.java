@@ -0,0 +1,44 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+public final class CacheLoads {
+
+    private CacheLoads() {
+    }
+
+    /**
+     * Reads a value from the cache, or loads it on the calling thread, with a single load at a
+     * time per key: the concurrent callers wait for the value being loaded.
+     * <p>
+     * Unlike {@code Cache.get(key, loader)}, the loader does not run inside the lock of the cache's
+     * map, which is a {@code synchronized} block. A loader that blocks on a query would pin a
+     * virtual thread to its carrier for the whole query; here the waiters park on a future instead.
+     * The loader also keeps the transaction of the caller, since it runs on the caller's thread.
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Supplier<V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> value = cache.get(key, (k, executor) -> loading);
+        if (value == loading) {
+            try {
+                loading.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                // A failed future is dropped by the cache, the next caller loads again
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
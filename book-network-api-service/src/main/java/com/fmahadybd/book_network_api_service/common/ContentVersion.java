@@ -0,0 +1,48 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.LocalDateTime;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * State of a set of rows that changes whenever one of them is added, removed or modified,
+ * read with a single aggregate query to validate a cached response without building it again.
+ * The rating fields cover the aggregates that are updated in bulk, without touching the
+ * modification date.
+ */
+public record ContentVersion(Long count, LocalDateTime lastModifiedDate, Long ratingCount, Double ratingSum) {
+
+    /**
+     * @param scope what else the response depends on, such as the connected user
+     * @return a strong entity tag for the response built from these rows
+     */
+    public String toETag(Object... scope) {
+        StringBuilder version = new StringBuilder()
+                .append(count).append('|')
+                .append(lastModifiedDate).append('|')
+                .append(ratingCount).append('|')
+                .append(ratingSum);
+        for (Object part : scope) {
+            version.append('|').append(part);
+        }
+        return digest(version);
+    }
+
+    /**
+     * @param parts a version maintained elsewhere, and what else the response depends on
+     * @return a strong entity tag for the response, in the same form as {@link #toETag(Object...)}
+     */
+    public static String eTagOf(String name, Object... parts) {
+        StringBuilder version = new StringBuilder(name);
+        for (Object part : parts) {
+            version.append('|').append(part);
+        }
+        return digest(version);
+    }
+
+    private static String digest(CharSequence version) {
+        return "\"" + DigestUtils.md5DigestAsHex(version.toString().getBytes(UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,37 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats of the bulk imports and exports, one record per row.
+ */
+public enum DataFormat {
+
+    /**
+     * Comma separated values with a header row naming the fields.
+     */
+    CSV("text/csv"),
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    DataFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static DataFormat of(MediaType contentType) {
+        for (DataFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + contentType);
+    }
+}
@@ -0,0 +1,33 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Allocates ids for the rows inserted with plain SQL from the generator Hibernate uses for the
+ * entity, so that they never collide with the ids of the entities it persists. With the pooled
+ * sequences, the database is only called once every 50 ids.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityIdAllocator {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Has to be called inside a transaction.
+     */
+    public Integer nextId(Class<?> entityClass) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass)
+                .getGenerator();
+        return (Integer) generator.generate(session, null, null, EventType.INSERT);
+    }
+}
@@ -0,0 +1,42 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.fmahadybd.book_network_api_service.exception.InvalidCursorException;
+
+/**
+ * Position of a row in a list sorted by {@code createdDate} then {@code id}, both descending.
+ * Clients receive it as an opaque string and send it back to get the rows that follow.
+ */
+public record PageCursor(LocalDateTime createdDate, Integer id) {
+
+    // Sorts before every stored row, so the first page is read with the same seek query
+    private static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE);
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Integer.valueOf(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((createdDate + "|" + id).getBytes(UTF_8));
+    }
+
+    public boolean isFirst() {
+        return FIRST.equals(this);
+    }
+}
@@ -1,6 +1,9 @@
 package com.fmahadybd.book_network_api_service.common;
 
 import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,5 +25,46 @@ public class PageResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    // Set in cursor mode only, where the totals are not computed and stay at -1
+    private String nextCursor;
+
+    public PageResponse(List<T> content, int number, int size, long totalElements, int totalPages, boolean first,
+            boolean last) {
+        this(content, number, size, totalElements, totalPages, first, last, null);
+    }
+
+    /**
+     * Builds a page from a slice and its total, which is -1 when it was not computed.
+     */
+    public static <S, T> PageResponse<T> ofSlice(Slice<S> slice, long totalElements, Function<S, T> mapper) {
+        return new PageResponse<>(
+                slice.getContent().stream().map(mapper).toList(),
+                slice.getNumber(),
+                slice.getSize(),
+                totalElements,
+                totalElements < 0 ? -1 : (int) Math.ceil((double) totalElements / slice.getSize()),
+                slice.isFirst(),
+                slice.isLast());
+    }
+
+    /**
+     * Builds a cursor mode page from rows read with a limit of {@code size + 1},
+     * the extra row only telling whether there is a next page.
+     */
+    public static <S, T> PageResponse<T> ofCursor(List<S> rows, int size, PageCursor cursor,
+            Function<S, PageCursor> cursorOf, Function<S, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<S> pageRows = hasNext ? rows.subList(0, size) : rows;
+        return PageResponse.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .number(0)
+                .size(size)
+                .totalElements(-1)
+                .totalPages(-1)
+                .first(cursor.isFirst())
+                .last(!hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null)
+                .build();
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token buckets, one per key, to rate limit an operation per account, per client
+ * address, etc.
+ * <p>
+ * A bucket holds up to {@code capacity} tokens and gets one back every {@code refillPeriod /
+ * capacity}; each call takes a token or is refused. The buckets are spread over lock stripes, so
+ * that concurrent calls for different keys rarely contend. Memory is bounded: when a stripe holds
+ * too many keys, the buckets that refilled completely are dropped first, as they are the same as
+ * no bucket at all, then the others.
+ */
+public class TokenBuckets {
+
+    private static final int STRIPES = 64;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxKeysPerStripe;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Map<String, Bucket>[] buckets;
+
+    public TokenBuckets(int capacity, Duration refillPeriod, int maxKeys) {
+        this(capacity, refillPeriod, maxKeys, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TokenBuckets(int capacity, Duration refillPeriod, int maxKeys, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / refillPeriod.toNanos();
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.nanoClock = nanoClock;
+        this.buckets = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+            buckets[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the key.
+     *
+     * @return {@link Duration#ZERO} if a token was taken, otherwise how long until the next token
+     */
+    public Duration tryAcquire(String key) {
+        int stripe = (key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            Map<String, Bucket> stripeBuckets = buckets[stripe];
+            Bucket bucket = stripeBuckets.get(key);
+            if (bucket == null) {
+                if (stripeBuckets.size() >= maxKeysPerStripe) {
+                    evict(stripeBuckets, now);
+                }
+                bucket = new Bucket(capacity, now);
+                stripeBuckets.put(key, bucket);
+            }
+            bucket.refill(now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos((long) Math.ceil((1 - bucket.tokens) / tokensPerNano));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(Map<String, Bucket> stripeBuckets, long now) {
+        stripeBuckets.values().removeIf(bucket -> {
+            bucket.refill(now);
+            return bucket.tokens >= capacity;
+        });
+        Iterator<Bucket> iterator = stripeBuckets.values().iterator();
+        while (stripeBuckets.size() >= maxKeysPerStripe && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
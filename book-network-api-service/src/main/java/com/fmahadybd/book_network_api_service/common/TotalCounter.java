@@ -0,0 +1,53 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Computes the total number of elements behind a {@link Slice} according to the requested {@link TotalMode}.
+ * Approximate totals are cached per filter and user for a short time to live.
+ */
+@Component
+public class TotalCounter {
+
+    private final AsyncCache<CountKey, Long> counts;
+
+    public TotalCounter(
+            @Value("${application.pagination.approximate-total-ttl:60s}") Duration ttl,
+            @Value("${application.pagination.approximate-total-max-entries:10000}") long maxEntries) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .buildAsync();
+    }
+
+    /**
+     * @param mode    how the total is computed
+     * @param slice   the page already read
+     * @param filter  name of the list query, part of the cache key
+     * @param id      the id the list query is filtered on, part of the cache key
+     * @param counter runs the count query
+     * @return the total number of elements, or -1 when it is not computed
+     */
+    public long count(TotalMode mode, Slice<?> slice, String filter, Integer id, LongSupplier counter) {
+        if (!slice.hasNext() && (slice.hasContent() || slice.isFirst())) {
+            // The last page tells the exact total for free
+            return (long) slice.getNumber() * slice.getSize() + slice.getNumberOfElements();
+        }
+        return switch (mode) {
+            case EXACT -> counter.getAsLong();
+            case APPROXIMATE -> CacheLoads.getOrLoad(counts, new CountKey(filter, id), counter::getAsLong);
+            case NONE -> -1;
+        };
+    }
+
+    private record CountKey(String filter, Integer id) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.fmahadybd.book_network_api_service.common;
+
+/**
+ * How the totals of a {@link PageResponse} are computed.
+ */
+public enum TotalMode {
+
+    /** Counts the matching rows on every request */
+    EXACT,
+    /** Reuses a recent count of the matching rows, refreshed after a short time to live */
+    APPROXIMATE,
+    /** Skips the count, the page only tells whether there is a next one */
+    NONE
+}
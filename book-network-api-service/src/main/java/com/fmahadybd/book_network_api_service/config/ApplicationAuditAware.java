@@ -4,7 +4,7 @@ import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import com.fmahadybd.book_network_api_service.user.User;
+import com.fmahadybd.book_network_api_service.security.UserPrincipal;
 
 import java.util.Optional;
 
@@ -21,8 +21,8 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
             return Optional.empty();
         }
 
-        User userPrincipal = (User) authentication.getPrincipal();
+        UserPrincipal userPrincipal = UserPrincipal.of(authentication);
 
-        return Optional.ofNullable(userPrincipal.getId());
+        return Optional.ofNullable(userPrincipal.id());
     }
 }
@@ -1,6 +1,7 @@
 package com.fmahadybd.book_network_api_service.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -9,13 +10,15 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
+import com.fmahadybd.book_network_api_service.security.BoundedPasswordEncoder;
+
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -29,6 +32,17 @@ public class BeansConfig {
 
     // Injecting the UserDetailsService to be used in authentication
     private final UserDetailsService userDetailsService;
+    // Same service, stores the passwords rehashed with the current work factor on login
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    @Value("${application.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    @Value("${application.security.password.hashing-threads:0}")
+    private int hashingThreads;
+    @Value("${application.security.password.hashing-queue:64}")
+    private int hashingQueue;
+    @Value("${application.security.password.hashing-timeout:5000}")
+    private long hashingTimeout;
 
     /**
      * Defines a bean for AuthenticationProvider using DaoAuthenticationProvider.
@@ -42,6 +56,7 @@ public class BeansConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService); // Setting user details service
         authProvider.setPasswordEncoder(passwordEncoder()); // Setting password encoder
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService); // Rehashing outdated passwords on login
         return authProvider;
     }
 
@@ -61,13 +76,17 @@ public class BeansConfig {
 
     /**
      * Defines a bean for password encoding using BCrypt hashing algorithm.
-     * This ensures that passwords are securely stored.
+     * This ensures that passwords are securely stored. The hashing runs on its
+     * own bounded pool of threads, half the cores by default, so that logins
+     * cannot take all the CPU. Raising the strength rehashes each password at
+     * the next login of its user.
      *
      * @return PasswordEncoder instance using BCrypt
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads, hashingQueue, hashingTimeout);
     }
 
     /**
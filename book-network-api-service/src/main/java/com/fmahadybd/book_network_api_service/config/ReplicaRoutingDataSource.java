@@ -0,0 +1,67 @@
+package com.fmahadybd.book_network_api_service.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fmahadybd.book_network_api_service.common.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Sends the statements of read-only transactions to the replica pool and everything else to the
+ * primary. A user whose read-write transaction committed keeps reading from the primary during the
+ * read-your-writes window, long enough for the replica to replay the change.
+ * <p>
+ * Has to sit behind a {@link LazyConnectionDataSourceProxy}: the route is resolved when the first
+ * statement runs, once the transaction has been marked read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(100_000)
+                .build();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                AfterCommit.run(() -> recentWriters.put(user, Boolean.TRUE));
+            }
+            return Route.PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
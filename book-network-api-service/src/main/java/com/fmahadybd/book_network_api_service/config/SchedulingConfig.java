@@ -0,0 +1,16 @@
+package com.fmahadybd.book_network_api_service.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the scheduled jobs (email outbox dispatcher, rating reconciliation, revocation list sync and
+ * purges) unless {@code application.scheduling.enabled} is false, e.g. in tests that count the
+ * statements sent to the database.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "application.scheduling", name = "enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
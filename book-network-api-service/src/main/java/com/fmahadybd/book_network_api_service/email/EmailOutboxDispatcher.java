@@ -0,0 +1,246 @@
+package com.fmahadybd.book_network_api_service.email;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.Nonnull;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
+
+/**
+ * Sends the emails of the outbox.
+ * <p>
+ * Each run claims the due emails in batches: the rows are locked with {@code SKIP LOCKED} and
+ * leased for a while, so that concurrent dispatchers never pick the same email. A batch is sent
+ * over a single SMTP connection, then the sent emails are marked and the failed ones are scheduled
+ * again with an exponential backoff, until they run out of attempts.
+ * <p>
+ * A run sends a bounded number of batches and stops at the first batch that could not be
+ * delivered at all, so that a down SMTP server is not hammered and the backlog waits in the table.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher implements MeterBinder {
+
+    // Batches sent per run at most, so that a large backlog does not hold the scheduler thread
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    private final OutboxEmailRepository repository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String from;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final AtomicLong pending = new AtomicLong();
+    // Set once the dispatcher is bound to the meter registry
+    private volatile Timer batchTimer;
+
+    public EmailOutboxDispatcher(
+            OutboxEmailRepository repository,
+            JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.mailing.from:contact@fahimdev.com}") String from,
+            @Value("${application.mailing.outbox.batch-size:50}") int batchSize,
+            @Value("${application.mailing.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${application.mailing.outbox.initial-backoff:30000}") long initialBackoff,
+            @Value("${application.mailing.outbox.max-backoff:3600000}") long maxBackoff,
+            @Value("${application.mailing.outbox.lease:300000}") long lease
+    ) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoff);
+        this.maxBackoff = Duration.ofMillis(maxBackoff);
+        this.lease = Duration.ofMillis(lease);
+    }
+
+    @Scheduled(fixedDelayString = "${application.mailing.outbox.poll-interval:1000}")
+    public void dispatch() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            List<OutboxEmail> batch = claim();
+            if (batch.isEmpty() || !send(batch) || batch.size() < batchSize) {
+                break;
+            }
+        }
+        pending.set(repository.countPending());
+    }
+
+    /**
+     * Deletes the emails sent long ago, the outbox is not an archive.
+     */
+    @Scheduled(cron = "${application.mailing.outbox.purge-cron:0 0 4 * * *}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minusDays(7);
+        Integer purged = transactionTemplate.execute(status -> repository.deleteSentBefore(before));
+        log.info("Purged {} sent emails from the outbox", purged);
+    }
+
+    private List<OutboxEmail> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEmail> batch = repository.findDue(now, batchSize);
+            // Leased: if this instance dies while sending, the emails are due again after the lease
+            batch.forEach(email -> email.setNextAttemptAt(now.plus(lease)));
+            return batch;
+        });
+    }
+
+    /**
+     * @return false if none of the emails could be sent
+     */
+    private boolean send(List<OutboxEmail> batch) {
+        Map<MimeMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        Map<OutboxEmail, String> unsendable = new HashMap<>();
+        for (OutboxEmail email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                unsendable.put(email, e.getMessage());
+            }
+        }
+
+        Map<OutboxEmail, String> failed = new HashMap<>();
+        if (!messages.isEmpty()) {
+            long startedAt = System.nanoTime();
+            try {
+                // One connection to the SMTP server for the whole batch
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, exception) ->
+                        failed.put(messages.get(message), exception.getMessage()));
+                if (failed.isEmpty()) {
+                    // The failed messages are not known, count them all as failed
+                    messages.values().forEach(email -> failed.put(email, e.getMessage()));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failed.put(email, e.getMessage()));
+            } finally {
+                if (batchTimer != null) {
+                    batchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        List<Integer> sentIds = new ArrayList<>();
+        messages.values().stream()
+                .filter(email -> !failed.containsKey(email))
+                .forEach(email -> sentIds.add(email.getId()));
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!sentIds.isEmpty()) {
+                repository.markSent(sentIds, now);
+            }
+            failed.forEach((email, error) -> retryOrGiveUp(email, error, now));
+            unsendable.forEach((email, error) -> giveUp(email, error, now));
+        });
+        sent.add(sentIds.size());
+        if (!failed.isEmpty()) {
+            log.warn("{} of {} emails could not be sent, retrying later", failed.size(), batch.size());
+        }
+        return !sentIds.isEmpty() || messages.isEmpty();
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+                mimeMessage,
+                MULTIPART_MODE_MIXED, // Allows multiple parts (text, attachments)
+                UTF_8.name()); // Ensures UTF-8 character encoding
+        helper.setFrom(from);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true); // Enables HTML content in the email
+        return mimeMessage;
+    }
+
+    private void retryOrGiveUp(OutboxEmail email, String error, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            giveUp(email, error, now);
+            return;
+        }
+        email.setAttempts(attempts);
+        email.setNextAttemptAt(now.plus(backoff(attempts)));
+        email.setLastError(error);
+        repository.save(email);
+        retried.increment();
+    }
+
+    private void giveUp(OutboxEmail email, String error, LocalDateTime now) {
+        email.setAttempts(email.getAttempts() + 1);
+        email.setFailedAt(now);
+        email.setLastError(error);
+        repository.save(email);
+        dead.increment();
+        log.error("Giving up on email {} to {}: {}", email.getId(), email.getRecipient(), error);
+    }
+
+    /**
+     * Exponential backoff with jitter: between half and all of {@code initialBackoff * 2^(attempts - 1)},
+     * capped at {@code maxBackoff}, so that the emails failed together are not retried together.
+     */
+    Duration backoff(int attempts) {
+        long exponential = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        long delay = exponential <= 0 ? maxBackoff.toMillis() : Math.min(maxBackoff.toMillis(), exponential);
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        FunctionCounter.builder("email.outbox.sent", sent, LongAdder::sum)
+                .description("Emails sent from the outbox")
+                .register(registry);
+        FunctionCounter.builder("email.outbox.failed", retried, LongAdder::sum)
+                .description("Failed email deliveries")
+                .tag("outcome", "retry")
+                .register(registry);
+        FunctionCounter.builder("email.outbox.failed", dead, LongAdder::sum)
+                .description("Failed email deliveries")
+                .tag("outcome", "dead")
+                .register(registry);
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(registry);
+        batchTimer = Timer.builder("email.outbox.batch")
+                .description("Time spent sending a batch of emails over one SMTP connection")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
@@ -1,35 +1,34 @@
 package com.fmahadybd.book_network_api_service.email;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE_MIXED;
-
 /**
- * Service class responsible for sending emails asynchronously using Spring Mail and Thymeleaf templates.
+ * Service class responsible for queuing emails rendered from Thymeleaf templates.
+ * <p>
+ * The emails are written to the outbox in the transaction of the caller, so that an email exists
+ * if and only if the change that caused it was committed. The {@link EmailOutboxDispatcher} sends
+ * them afterwards.
  */
 @Service
 @Slf4j // Enables logging capabilities
 @RequiredArgsConstructor // Generates a constructor with required fields (final variables)
 public class EmailService {
-    
-    private final JavaMailSender mailSender; // Handles sending emails
+
+    private final OutboxEmailRepository outboxEmailRepository; // Stores the emails until they are sent
     private final SpringTemplateEngine templateEngine; // Processes email templates
 
     /**
-     * Sends an email asynchronously using a Thymeleaf email template.
+     * Renders an email from a Thymeleaf template and queues it in the outbox.
      *
      * @param to             Recipient email address
      * @param username       Username of the recipient
@@ -37,27 +36,19 @@ public class EmailService {
      * @param confirmationUrl URL for email confirmation
      * @param activationCode Activation code to be included in the email
      * @param subject        Email subject
-     * @throws MessagingException if an error occurs while creating or sending the email
      */
-    @Async // Marks this method for asynchronous execution
-    public void sendEmail(
+    @Transactional(propagation = Propagation.MANDATORY) // Must be part of the transaction of the change
+    public void queueEmail(
             String to,
             String username,
             EmailTemplateName emailTemplate,
             String confirmationUrl,
             String activationCode,
-            String subject) throws MessagingException {
-        
+            String subject) {
+
         // Determine the template name based on the provided email template enum
         String templateName = (emailTemplate == null) ? "confirm-email" : emailTemplate.getName();
 
-        // Create a new email message
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(
-                mimeMessage,
-                MULTIPART_MODE_MIXED, // Allows multiple parts (text, attachments)
-                UTF_8.name()); // Ensures UTF-8 character encoding
-
         // Populate email template properties
         Map<String, Object> properties = new HashMap<>();
         properties.put("username", username);
@@ -68,16 +59,14 @@ public class EmailService {
         Context context = new Context();
         context.setVariables(properties);
 
-        // Configure email properties
-        helper.setFrom("contact@fahimdev.com"); // Sender's email address
-        helper.setTo(to); // Recipient email address
-        helper.setSubject(subject); // Email subject
-
-        // Process the Thymeleaf template and set the email content
-        String template = templateEngine.process(templateName, context);
-        helper.setText(template, true); // Enables HTML content in the email
-
-        // Send the email
-        mailSender.send(mimeMessage);
+        // Process the Thymeleaf template and queue the email, due right away
+        LocalDateTime now = LocalDateTime.now();
+        outboxEmailRepository.save(OutboxEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(templateEngine.process(templateName, context))
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
     }
 }
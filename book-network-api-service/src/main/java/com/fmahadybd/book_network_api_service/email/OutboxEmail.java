@@ -0,0 +1,48 @@
+package com.fmahadybd.book_network_api_service.email;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting in the outbox, already rendered. It is sent by the {@link EmailOutboxDispatcher}
+ * and retried with a growing delay until it is sent or runs out of attempts.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "email_outbox")
+public class OutboxEmail {
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(nullable = false)
+    private String recipient;
+    @Column(nullable = false)
+    private String subject;
+    @Column(nullable = false, columnDefinition = "text")
+    private String body;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    private int attempts;
+    private LocalDateTime sentAt;
+    // Set when the email ran out of attempts or cannot be sent at all
+    private LocalDateTime failedAt;
+    @Column(columnDefinition = "text")
+    private String lastError;
+}
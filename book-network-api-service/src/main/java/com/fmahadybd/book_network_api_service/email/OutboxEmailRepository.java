@@ -0,0 +1,53 @@
+package com.fmahadybd.book_network_api_service.email;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Integer> {
+
+        /**
+         * Locks the next emails to send. The rows locked by another dispatcher are skipped, so that
+         * several instances drain the outbox without sending an email twice.
+         */
+        @Query(value = """
+                        SELECT *
+                        FROM email_outbox
+                        WHERE sent_at IS NULL
+                        AND failed_at IS NULL
+                        AND next_attempt_at <= :now
+                        ORDER BY next_attempt_at
+                        LIMIT :limit
+                        FOR UPDATE SKIP LOCKED
+                        """, nativeQuery = true)
+        List<OutboxEmail> findDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+        @Query("""
+                        SELECT COUNT(email)
+                        FROM OutboxEmail email
+                        WHERE email.sentAt IS NULL
+                        AND email.failedAt IS NULL
+                        """)
+        long countPending();
+
+        @Modifying
+        @Query("""
+                        UPDATE OutboxEmail email
+                        SET email.sentAt = :now,
+                        email.attempts = email.attempts + 1
+                        WHERE email.id IN :ids
+                        """)
+        int markSent(@Param("ids") Collection<Integer> ids, @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query("""
+                        DELETE FROM OutboxEmail email
+                        WHERE email.sentAt < :before
+                        """)
+        int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,9 @@
+package com.fmahadybd.book_network_api_service.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+}
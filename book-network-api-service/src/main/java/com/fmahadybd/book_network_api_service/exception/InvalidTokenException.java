@@ -0,0 +1,9 @@
+package com.fmahadybd.book_network_api_service.exception;
+
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.fmahadybd.book_network_api_service.exception;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    // How long the client should wait before retrying
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+}
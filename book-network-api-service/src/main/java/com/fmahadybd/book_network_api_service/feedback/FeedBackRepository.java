@@ -1,16 +1,44 @@
 package com.fmahadybd.book_network_api_service.feedback;
 
-import org.springframework.data.domain.Page;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.fmahadybd.book_network_api_service.common.ContentVersion;
+
 public interface FeedBackRepository extends JpaRepository<Feedback, Integer> {
     @Query("""
                         SELECT feedback
                         FROM Feedback  feedback
                         WHERE feedback.book.id = :bookId
             """)
-    Page<Feedback> findAllByBookId(@Param("bookId") Integer bookId, Pageable pageable);
-}
\ No newline at end of file
+    Slice<Feedback> findAllByBookId(@Param("bookId") Integer bookId, Pageable pageable);
+
+    long countByBookId(Integer bookId);
+
+    @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.common.ContentVersion(
+                        COUNT(feedback),
+                        MAX(COALESCE(feedback.lastModifiedDate, feedback.createdDate)),
+                        COUNT(feedback.note), SUM(feedback.note))
+                        FROM Feedback  feedback
+                        WHERE feedback.book.id = :bookId
+            """)
+    ContentVersion findVersionByBookId(@Param("bookId") Integer bookId);
+
+    @Query("""
+                        SELECT feedback
+                        FROM Feedback  feedback
+                        WHERE feedback.book.id = :bookId
+                        AND (feedback.createdDate, feedback.id) < (:createdDate, :feedbackId)
+                        ORDER BY feedback.createdDate DESC, feedback.id DESC
+            """)
+    List<Feedback> findAllByBookIdAfter(@Param("bookId") Integer bookId,
+            @Param("createdDate") LocalDateTime createdDate, @Param("feedbackId") Integer feedbackId,
+            Pageable pageable);
+}
@@ -2,7 +2,9 @@ package com.fmahadybd.book_network_api_service.feedback;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +14,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
 
 @RestController
 @RequestMapping("feedbacks")
@@ -33,9 +37,22 @@ public class FeedbackController {
     @GetMapping("/book/{book-id}")
     public ResponseEntity<PageResponse<FeedbackResponse>> findAllFeedbacksByBook(
             @PathVariable("book-id") Integer bookId,
-            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
-            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-        return ResponseEntity.ok(service.findAllFeedbacksByBook(bookId, page, size, connectedUser));
+            @RequestParam(name = "page", defaultValue = "0", required = false) @Min(0) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) @Min(1) int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "total", defaultValue = "EXACT", required = false) TotalMode total,
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        String eTag = service.findAllFeedbacksByBookETag(bookId, connectedUser);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (cursor != null) {
+            return response.body(service.findAllFeedbacksByBookAfter(bookId, cursor, size, connectedUser));
+        }
+        return response.body(service.findAllFeedbacksByBook(bookId, page, size, total, connectedUser));
     }
 }
\ No newline at end of file
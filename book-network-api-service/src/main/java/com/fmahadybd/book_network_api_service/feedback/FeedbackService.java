@@ -3,18 +3,23 @@ package com.fmahadybd.book_network_api_service.feedback;
 import java.util.List;
 import java.util.Objects;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fmahadybd.book_network_api_service.book.Book;
+import com.fmahadybd.book_network_api_service.book.BookRating;
 import com.fmahadybd.book_network_api_service.book.BookRepository;
+import com.fmahadybd.book_network_api_service.common.PageCursor;
 import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalCounter;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
 import com.fmahadybd.book_network_api_service.exception.OperationNotPermittedException;
-import com.fmahadybd.book_network_api_service.user.User;
+import com.fmahadybd.book_network_api_service.security.UserPrincipal;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -26,7 +31,9 @@ public class FeedbackService {
     private final FeedBackRepository feedBackRepository;
     private final BookRepository bookRepository;
     private final FeedbackMapper feedbackMapper;
+    private final TotalCounter totalCounter;
 
+    @Transactional
     public Integer save(FeedbackRequest request, Authentication connectedUser) {
         Book book = bookRepository.findById(request.bookId())
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + request.bookId()));
@@ -34,31 +41,49 @@ public class FeedbackService {
             throw new OperationNotPermittedException(
                     "You cannot give a feedback for and archived or not shareable book");
         }
-        User user = ((User) connectedUser.getPrincipal());
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        if (Objects.equals(book.getOwner().getId(), user.id())) {
             throw new OperationNotPermittedException("You cannot give feedback to your own book");
         }
         Feedback feedback = feedbackMapper.toFeedback(request);
-        return feedBackRepository.save(feedback).getId();
+        Integer feedbackId = feedBackRepository.save(feedback).getId();
+        if (request.note() != null) {
+            bookRepository.addRating(book.getId(), request.note(), BookRating.toStars(request.note()));
+        }
+        return feedbackId;
     }
 
-    @Transactional
-    public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size,
+    @Transactional(readOnly = true)
+    public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size, TotalMode total,
             Authentication connectedUser) {
-        Pageable pageable = PageRequest.of(page, size);
-        User user = ((User) connectedUser.getPrincipal());
-        Page<Feedback> feedbacks = feedBackRepository.findAllByBookId(bookId, pageable);
-        List<FeedbackResponse> feedbackResponses = feedbacks.stream()
-                .map(f -> feedbackMapper.toFeedbackResponse(f, user.getId()))
-                .toList();
-        return new PageResponse<>(
-                feedbackResponses,
-                feedbacks.getNumber(),
-                feedbacks.getSize(),
-                feedbacks.getTotalElements(),
-                feedbacks.getTotalPages(),
-                feedbacks.isFirst(),
-                feedbacks.isLast());
+        // Same order as the cursor pages, the id breaking the ties
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        Slice<Feedback> feedbacks = feedBackRepository.findAllByBookId(bookId, pageable);
+        long totalElements = totalCounter.count(total, feedbacks, "book-feedbacks", bookId,
+                () -> feedBackRepository.countByBookId(bookId));
+        return PageResponse.ofSlice(feedbacks, totalElements, f -> feedbackMapper.toFeedbackResponse(f, user.id()));
+    }
 
+    /**
+     * @return the entity tag shared by every page of the feedbacks of a book, scoped to the user
+     *         since the responses flag their own feedbacks
+     */
+    @Transactional(readOnly = true)
+    public String findAllFeedbacksByBookETag(Integer bookId, Authentication connectedUser) {
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        return feedBackRepository.findVersionByBookId(bookId).toETag("book-feedbacks", bookId, user.id());
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<FeedbackResponse> findAllFeedbacksByBookAfter(Integer bookId, String cursor, int size,
+            Authentication connectedUser) {
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<Feedback> feedbacks = feedBackRepository.findAllByBookIdAfter(bookId, pageCursor.createdDate(),
+                pageCursor.id(), PageRequest.of(0, size + 1));
+        return PageResponse.ofCursor(feedbacks, size, pageCursor,
+                f -> new PageCursor(f.getCreatedDate(), f.getId()),
+                f -> feedbackMapper.toFeedbackResponse(f, user.id()));
     }
 }
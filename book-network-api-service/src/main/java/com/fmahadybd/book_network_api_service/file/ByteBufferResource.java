@@ -0,0 +1,80 @@
+package com.fmahadybd.book_network_api_service.file;
+
+import jakarta.annotation.Nonnull;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link org.springframework.core.io.Resource} over a (possibly direct) byte buffer.
+ * Every call to {@link #getInputStream()} reads from its own view of the buffer, so the same
+ * cached content can be served to concurrent requests and range requests.
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer content;
+    private final String filename;
+    private final long lastModified;
+
+    public ByteBufferResource(ByteBuffer content, String filename, long lastModified) {
+        this.content = content;
+        this.filename = filename;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    @Nonnull
+    public String getDescription() {
+        return "Byte buffer resource [" + filename + "]";
+    }
+
+    @Override
+    @Nonnull
+    public InputStream getInputStream() {
+        ByteBuffer view = content.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(@Nonnull byte[] bytes, int offset, int length) {
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, view.remaining());
+                view.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public long skip(long n) {
+                int count = (int) Math.max(0, Math.min(n, view.remaining()));
+                view.position(view.position() + count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.fmahadybd.book_network_api_service.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * In-memory cache of cover pictures in front of {@link FileUtils#readFileFromLocation(String)}.
+ * <p>
+ * Entries are keyed by file path and revalidated against the file modification time, the cache is
+ * bounded by the total number of cached bytes (W-TinyLFU eviction), and the pictures can be kept
+ * in direct buffers so that large caches stay out of the garbage collected heap.
+ * <p>
+ * Pictures larger than {@code max-entry-bytes} are never read into memory: they are streamed from
+ * disk, so that a few large files neither take the heap nor evict the many small covers.
+ */
+@Slf4j
+@Component
+public class CoverCache implements MeterBinder {
+
+    private final Cache<String, CachedCover> cache;
+    private final boolean offHeap;
+    private final long maxEntryBytes;
+
+    public CoverCache(
+            @Value("${application.file.cover-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${application.file.cover-cache.max-entry-bytes:1048576}") long maxEntryBytes,
+            @Value("${application.file.cover-cache.off-heap:false}") boolean offHeap
+    ) {
+        this.offHeap = offHeap;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String path, CachedCover cover) -> cover.content().capacity())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cover stored at the given location, reading it from disk only when it is not
+     * cached yet or when the file changed since it was cached. A picture above the entry size limit
+     * is returned as a resource that streams the file.
+     *
+     * @param fileUrl location of the cover picture
+     * @return the cover, or {@code null} if there is no readable file at that location
+     */
+    public Resource get(String fileUrl) {
+        if (StringUtils.isBlank(fileUrl)) {
+            return null;
+        }
+        Path path = Path.of(fileUrl);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            cache.invalidate(fileUrl);
+            log.warn("Nou file found in the path {}", fileUrl);
+            return null;
+        }
+        if (attributes.size() > maxEntryBytes) {
+            cache.invalidate(fileUrl);
+            return new FileSystemResource(path);
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        CachedCover cover = cache.getIfPresent(fileUrl);
+        if (cover == null || cover.lastModified() != lastModified) {
+            byte[] bytes = FileUtils.readFileFromLocation(fileUrl);
+            if (bytes == null) {
+                return null;
+            }
+            cover = new CachedCover(toBuffer(bytes), lastModified);
+            cache.put(fileUrl, cover);
+        }
+        return new ByteBufferResource(cover.content(), path.getFileName().toString(), cover.lastModified());
+    }
+
+    public void invalidate(String fileUrl) {
+        if (StringUtils.isNotBlank(fileUrl)) {
+            cache.invalidate(fileUrl);
+        }
+    }
+
+    /**
+     * @return total size in bytes of the cached pictures
+     */
+    public long weightedSize() {
+        // Applies the pending writes and evictions first, which Caffeine otherwise does asynchronously
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "covers");
+        Gauge.builder("cache.covers.bytes", this, CoverCache::weightedSize)
+                .description("Total size of the cached cover pictures")
+                .baseUnit("bytes")
+                .tag("storage", offHeap ? "off-heap" : "heap")
+                .register(registry);
+    }
+
+    private ByteBuffer toBuffer(byte[] bytes) {
+        if (!offHeap) {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private record CachedCover(ByteBuffer content, long lastModified) {
+    }
+}
@@ -33,6 +33,20 @@ public class FileStorageService {
         return uploadFile(sourceFile, fileUploadSubPath);
     }
 
+    /**
+     * Deletes a stored file that nothing points to anymore.
+     */
+    public void deleteFile(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(filePath));
+        } catch (IOException e) {
+            log.warn("Failed to delete the file: " + filePath, e);
+        }
+    }
+
     private String uploadFile(
             @Nonnull MultipartFile sourceFile,
             @Nonnull String fileUploadSubPath
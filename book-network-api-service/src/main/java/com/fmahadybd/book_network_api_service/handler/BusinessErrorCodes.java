@@ -6,6 +6,8 @@ import lombok.Getter;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 public enum BusinessErrorCodes {
 
@@ -15,6 +17,8 @@ public enum BusinessErrorCodes {
     ACCOUNT_LOCKED(302, FORBIDDEN, "User account is locked"),
     ACCOUNT_DISABLED(303, FORBIDDEN, "User account is disabled"),
     BAD_CREDENTIALS(304, FORBIDDEN, "Login and / or Password is incorrect"),
+    INVALID_TOKEN(305, UNAUTHORIZED, "Token is invalid, expired or revoked"),
+    LOGIN_THROTTLED(306, TOO_MANY_REQUESTS, "Too many login attempts, please retry later"),
 
     ;
 
@@ -3,14 +3,19 @@ package com.fmahadybd.book_network_api_service.handler;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.fmahadybd.book_network_api_service.exception.InvalidCursorException;
+import com.fmahadybd.book_network_api_service.exception.InvalidTokenException;
+import com.fmahadybd.book_network_api_service.exception.TooManyRequestsException;
 import com.fmahadybd.book_network_api_service.exception.OperationNotPermittedException;
 
 import jakarta.mail.MessagingException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -18,9 +23,12 @@ import java.util.Set;
 import static com.fmahadybd.book_network_api_service.handler.BusinessErrorCodes.ACCOUNT_DISABLED;
 import static com.fmahadybd.book_network_api_service.handler.BusinessErrorCodes.ACCOUNT_LOCKED;
 import static com.fmahadybd.book_network_api_service.handler.BusinessErrorCodes.BAD_CREDENTIALS;
+import static com.fmahadybd.book_network_api_service.handler.BusinessErrorCodes.INVALID_TOKEN;
+import static com.fmahadybd.book_network_api_service.handler.BusinessErrorCodes.LOGIN_THROTTLED;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 @RestControllerAdvice
@@ -66,6 +74,33 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ExceptionResponse> handleException(InvalidTokenException exp) {
+        return ResponseEntity
+                .status(UNAUTHORIZED)
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(INVALID_TOKEN.getCode())
+                                .businessErrorDescription(INVALID_TOKEN.getDescription())
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ExceptionResponse> handleException(TooManyRequestsException exp) {
+        return ResponseEntity
+                .status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (exp.getRetryAfter().toMillis() + 999) / 1000)))
+                .body(
+                        ExceptionResponse.builder()
+                                .businessErrorCode(LOGIN_THROTTLED.getCode())
+                                .businessErrorDescription(LOGIN_THROTTLED.getDescription())
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
+
     @ExceptionHandler(MessagingException.class)
     public ResponseEntity<ExceptionResponse> handleException(MessagingException exp) {
         return ResponseEntity
@@ -118,6 +153,26 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    /**
+     * Constraints on the request parameters, such as a page size below 1.
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ExceptionResponse> handleHandlerMethodValidationException(HandlerMethodValidationException exp) {
+        Set<String> errors = new HashSet<>();
+        exp.getAllValidationResults()
+                .forEach(result -> result.getResolvableErrors()
+                        .forEach(error -> errors.add(
+                                result.getMethodParameter().getParameterName() + " " + error.getDefaultMessage())));
+
+        return ResponseEntity
+                .status(BAD_REQUEST)
+                .body(
+                        ExceptionResponse.builder()
+                                .validationErrors(errors)
+                                .build()
+                );
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionResponse> handleException(Exception exp) {
         exp.printStackTrace();
@@ -141,4 +196,15 @@ public class GlobalExceptionHandler {
                                 .build()
                 );
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ExceptionResponse> handleException(InvalidCursorException exp) {
+        return ResponseEntity
+                .status(BAD_REQUEST)
+                .body(
+                        ExceptionResponse.builder()
+                                .error(exp.getMessage())
+                                .build()
+                );
+    }
 }
\ No newline at end of file
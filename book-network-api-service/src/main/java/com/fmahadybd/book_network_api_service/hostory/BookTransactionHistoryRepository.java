@@ -1,13 +1,25 @@
 package com.fmahadybd.book_network_api_service.hostory;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.fmahadybd.book_network_api_service.book.BorrowedBookSummary;
+
+import jakarta.persistence.QueryHint;
+
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
 
         @Query("""
@@ -29,6 +41,37 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
                         """)
         boolean isAlreadyBorrowed(@Param("bookId") Integer bookId);
 
+        /**
+         * Opens a loan of the book and marks the book unavailable in a single statement, unless the
+         * book cannot be borrowed by the user or already has an open loan. The partial unique index
+         * on the open loans settles concurrent borrows: the losers change nothing.
+         *
+         * @return 1 when the loan was opened, 0 otherwise
+         */
+        @Modifying
+        @Query(value = """
+                        WITH loan AS (
+                        INSERT INTO book_transaction_history (id, user_id, book_id, returned, return_approved,
+                        created_date, created_by)
+                        SELECT :historyId, :userId, book.id, false, false, :now, :userId
+                        FROM book book
+                        WHERE book.id = :bookId
+                        AND book.archived = false
+                        AND book.shareable = true
+                        AND book.owner_id <> :userId
+                        ON CONFLICT (book_id) WHERE return_approved = false DO NOTHING
+                        RETURNING book_id
+                        )
+                        UPDATE book
+                        SET available = false,
+                        last_modified_date = :now,
+                        last_modified_by = :userId
+                        FROM loan
+                        WHERE book.id = loan.book_id
+                        """, nativeQuery = true)
+        int borrow(@Param("historyId") Integer historyId, @Param("bookId") Integer bookId,
+                        @Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
         @Query("""
                         SELECT transaction
                         FROM BookTransactionHistory  transaction
@@ -51,18 +94,104 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
         Optional<BookTransactionHistory> findByBookIdAndOwnerId(@Param("bookId") Integer bookId,
                         @Param("userId") Integer userId);
 
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.hostory.HistoryExportRow(
+                        history.id,
+                        CASE WHEN history.user.id = :userId THEN 'BORROWED' ELSE 'LENT' END,
+                        book.id, book.title, book.authorName, book.isbn,
+                        history.returned, history.returnApproved,
+                        history.createdDate, history.lastModifiedDate)
+                        FROM BookTransactionHistory history
+                        JOIN history.book book
+                        WHERE history.user.id = :userId
+                        OR book.owner.id = :userId
+                        ORDER BY history.createdDate, history.id
+                        """)
+        Stream<HistoryExportRow> streamHistory(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT DISTINCT transaction.book.id
+                        FROM BookTransactionHistory  transaction
+                        WHERE transaction.book.id IN :bookIds
+                        AND transaction.returned = true
+                        AND transaction.returnApproved = false
+                        """)
+        List<Integer> findReturnedBookIds(@Param("bookIds") Collection<Integer> bookIds);
+
+        @Modifying
+        @Query("""
+                        UPDATE BookTransactionHistory transaction
+                        SET transaction.returnApproved = true,
+                        transaction.lastModifiedDate = :now,
+                        transaction.lastModifiedBy = :userId
+                        WHERE transaction.book.id IN :bookIds
+                        AND transaction.returned = true
+                        AND transaction.returnApproved = false
+                        """)
+        int approveReturns(@Param("bookIds") Collection<Integer> bookIds, @Param("userId") Integer userId,
+                        @Param("now") LocalDateTime now);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BorrowedBookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.rating,
+                        history.returned, history.returnApproved, history.id, history.createdDate)
+                        FROM BookTransactionHistory history
+                        JOIN history.book book
+                        WHERE history.user.id = :userId
+                        """)
+        Slice<BorrowedBookSummary> findAllBorrowedBooks(Pageable pageable, Integer userId);
+
         @Query("""
-                        SELECT history
+                        SELECT COUNT(history)
                         FROM BookTransactionHistory history
                         WHERE history.user.id = :userId
                         """)
-        Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
+        long countBorrowedBooks(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BorrowedBookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.rating,
+                        history.returned, history.returnApproved, history.id, history.createdDate)
+                        FROM BookTransactionHistory history
+                        JOIN history.book book
+                        WHERE book.owner.id = :userId
+                        """)
+        Slice<BorrowedBookSummary> findAllReturnedBooks(Pageable pageable, Integer userId);
 
         @Query("""
-                        SELECT history
+                        SELECT COUNT(history)
                         FROM BookTransactionHistory history
                         WHERE history.book.owner.id = :userId
                         """)
-        Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+        long countReturnedBooks(@Param("userId") Integer userId);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BorrowedBookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.rating,
+                        history.returned, history.returnApproved, history.id, history.createdDate)
+                        FROM BookTransactionHistory history
+                        JOIN history.book book
+                        WHERE history.user.id = :userId
+                        AND (history.createdDate, history.id) < (:createdDate, :historyId)
+                        ORDER BY history.createdDate DESC, history.id DESC
+                        """)
+        List<BorrowedBookSummary> findBorrowedBooksAfter(@Param("userId") Integer userId,
+                        @Param("createdDate") LocalDateTime createdDate, @Param("historyId") Integer historyId,
+                        Pageable pageable);
+
+        @Query("""
+                        SELECT new com.fmahadybd.book_network_api_service.book.BorrowedBookSummary(
+                        book.id, book.title, book.authorName, book.isbn, book.rating,
+                        history.returned, history.returnApproved, history.id, history.createdDate)
+                        FROM BookTransactionHistory history
+                        JOIN history.book book
+                        WHERE book.owner.id = :userId
+                        AND (history.createdDate, history.id) < (:createdDate, :historyId)
+                        ORDER BY history.createdDate DESC, history.id DESC
+                        """)
+        List<BorrowedBookSummary> findReturnedBooksAfter(@Param("userId") Integer userId,
+                        @Param("createdDate") LocalDateTime createdDate, @Param("historyId") Integer historyId,
+                        Pageable pageable);
 
 }
@@ -0,0 +1,23 @@
+package com.fmahadybd.book_network_api_service.hostory;
+
+import java.time.LocalDateTime;
+
+/**
+ * A borrow of the exported history, seen from the user who borrowed the book ({@code BORROWED})
+ * or from its owner ({@code LENT}).
+ */
+public record HistoryExportRow(
+        Integer historyId,
+        String direction,
+        Integer bookId,
+        String title,
+        String authorName,
+        String isbn,
+        boolean returned,
+        boolean returnApproved,
+        LocalDateTime borrowedDate,
+        LocalDateTime lastModifiedDate) {
+
+    static final String CSV_HEADER =
+            "historyId,direction,bookId,title,authorName,isbn,returned,returnApproved,borrowedDate,lastModifiedDate";
+}
@@ -0,0 +1,103 @@
+package com.fmahadybd.book_network_api_service.hostory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+import com.fmahadybd.book_network_api_service.security.UserPrincipal;
+
+/**
+ * Exports the whole borrow and lending history of a user. Rows are read from a forward-only
+ * cursor and written to the response as they come, so memory use does not depend on the length
+ * of the history.
+ */
+@Service
+public class HistoryExportService {
+
+    private final BookTransactionHistoryRepository transactionHistoryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public HistoryExportService(
+            BookTransactionHistoryRepository transactionHistoryRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StreamingResponseBody exportHistory(DataFormat format, Authentication connectedUser) {
+        UserPrincipal user = UserPrincipal.of(connectedUser);
+        Integer userId = user.id();
+        // The body is written after the handler returned, so the cursor gets its own transaction:
+        // PostgreSQL only honours the fetch size when auto-commit is off
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+            try (Stream<HistoryExportRow> rows = transactionHistoryRepository.streamHistory(userId)) {
+                write(rows.iterator(), format, writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void write(Iterator<HistoryExportRow> rows, DataFormat format, Writer writer) throws IOException {
+        if (format == DataFormat.CSV) {
+            writer.write(HistoryExportRow.CSV_HEADER);
+            writer.write("\r\n");
+        }
+        while (rows.hasNext()) {
+            HistoryExportRow row = rows.next();
+            if (format == DataFormat.CSV) {
+                writeCsv(row, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void writeCsv(HistoryExportRow row, Writer writer) throws IOException {
+        writer.write(String.join(",",
+                csv(row.historyId()),
+                csv(row.direction()),
+                csv(row.bookId()),
+                csv(row.title()),
+                csv(row.authorName()),
+                csv(row.isbn()),
+                csv(row.returned()),
+                csv(row.returnApproved()),
+                csv(row.borrowedDate()),
+                csv(row.lastModifiedDate())));
+        writer.write("\r\n");
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
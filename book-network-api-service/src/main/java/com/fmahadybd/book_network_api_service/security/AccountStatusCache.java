@@ -0,0 +1,58 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import com.fmahadybd.book_network_api_service.common.AfterCommit;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Whether an account is enabled and not locked, by user id, for the requests authenticated from
+ * the token claims alone. Locking or disabling an account through {@link UserDetailsServiceImpl}
+ * evicts its entry once committed, so the change applies from the next request on this instance;
+ * on the other instances it applies when the entry expires, after {@code max-age} at the latest.
+ */
+@Component
+public class AccountStatusCache implements MeterBinder {
+
+    private final LoadingCache<Integer, Boolean> activeAccounts;
+
+    public AccountStatusCache(
+            UserRepository userRepository,
+            @Value("${application.security.jwt.stateless-principal.max-age:900000}") long maxAge,
+            @Value("${application.security.jwt.stateless-principal.cache-size:10000}") long cacheSize
+    ) {
+        this.activeAccounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(Math.max(maxAge, 0)))
+                .recordStats()
+                .build(userId -> userRepository.isActive(userId).orElse(false));
+    }
+
+    /**
+     * @return whether the account of the user is enabled and not locked, loaded on the first call
+     */
+    public boolean isActive(Integer userId) {
+        return activeAccounts.get(userId);
+    }
+
+    /**
+     * Forgets the state of the account once the current transaction committed, so that the next
+     * request loads it again.
+     */
+    public void evict(Integer userId) {
+        AfterCommit.run(() -> activeAccounts.invalidate(userId));
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, activeAccounts, "account-status");
+    }
+}
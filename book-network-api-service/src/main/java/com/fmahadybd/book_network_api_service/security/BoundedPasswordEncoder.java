@@ -0,0 +1,146 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import com.fmahadybd.book_network_api_service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.Nonnull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Password encoder that runs the hashing of its delegate on a bounded pool of threads.
+ * <p>
+ * BCrypt is slow on purpose and CPU bound: run on the request threads, a burst of logins keeps
+ * every core busy and slows down all the other requests. Here at most {@code threads} hashes run
+ * at once and at most {@code queueCapacity} wait for a thread. A hash that cannot be queued, or
+ * that waits longer than the timeout, is refused with a {@link TooManyRequestsException} instead
+ * of piling up. The calling thread still waits for its own hash.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, AutoCloseable {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final LongAdder rejected = new LongAdder();
+
+    // Set once the encoder is bound to the meter registry
+    private volatile Timer waitTimer;
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T hash(Supplier<Timer> timer, Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(waitTimer, startedAt - submittedAt);
+                try {
+                    return hashing.get();
+                } finally {
+                    record(timer.get(), System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many logins in progress, please retry later", RETRY_AFTER);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("Too many logins in progress, please retry later", RETRY_AFTER);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return number of hashes waiting for a thread
+     */
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(registry);
+        waitTimer = Timer.builder("auth.password.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        encodeTimer = hashingTimer(registry, "encode");
+        matchesTimer = hashingTimer(registry, "matches");
+        FunctionCounter.builder("auth.password.rejected", rejected, LongAdder::sum)
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(registry);
+    }
+
+    private static Timer hashingTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent hashing a password")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
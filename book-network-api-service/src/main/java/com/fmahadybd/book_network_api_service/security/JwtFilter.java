@@ -1,10 +1,12 @@
 package com.fmahadybd.book_network_api_service.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,6 +27,15 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwtService; // Service for handling JWT operations
     private final UserDetailsService userDetailsService; // Service for loading user details from securiy core
+    private final TokenRevocationList revocationList; // Revoked token families, mostly answered from memory
+    private final AccountStatusCache accountStatusCache; // Enabled and unlocked accounts, evicted on change
+
+    // Authenticate from the token claims instead of loading the user on every request
+    @Value("${application.security.jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipal;
+    // How long after its issue a token is authenticated from its claims, see application.security.jwt
+    @Value("${application.security.jwt.stateless-principal.max-age:900000}")
+    private long statelessPrincipalMaxAge;
 
     /**
      * Filters incoming requests to validate and process JWT authentication.
@@ -50,6 +61,7 @@ public class JwtFilter extends OncePerRequestFilter {
         // Extract the Authorization header from the request
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String userEmail;
 
 
@@ -59,22 +71,31 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            
-            // Load user details from database
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-            // Validate the JWT token against the loaded user details
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                // Create an authentication token and set user details
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null, // No credentials are needed as JWT is already validated
-                        userDetails.getAuthorities() // Set user roles/authorities
-                );
+        // Parsed and verified once for the whole request
+        claims = jwtService.verify(jwt);
+        userEmail = claims.getSubject();
+
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !revocationList.isRevoked(jwtService.extractFamily(claims))) {
+            UsernamePasswordAuthenticationToken authToken = statelessPrincipal(claims);
+
+            if (authToken == null) {
+                // Load user details from database
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
 
+                // Validate the JWT token against the loaded user details and the account state
+                if (jwtService.isTokenValid(claims, userDetails)
+                        && userDetails.isEnabled() && userDetails.isAccountNonLocked()) {
+                    // Create an authentication token and set user details
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null, // No credentials are needed as JWT is already validated
+                            userDetails.getAuthorities() // Set user roles/authorities
+                    );
+                }
+            }
+
+            if (authToken != null) {
                 // Attach request details to the authentication token
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request));
@@ -87,4 +108,24 @@ public class JwtFilter extends OncePerRequestFilter {
         // Continue with the request processing
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Authenticates the request from the claims when the stateless principal mode is on and the
+     * token was issued less than {@code max-age} ago. The account state is still checked, from the
+     * {@link AccountStatusCache} that locking or disabling an account evicts. Older tokens, tokens
+     * without the user id and inactive accounts go through the database, which refuses the latter.
+     *
+     * @return the authentication, or {@code null} if the user has to be loaded from the database
+     */
+    private UsernamePasswordAuthenticationToken statelessPrincipal(Claims claims) {
+        if (!statelessPrincipal || claims.getIssuedAt() == null
+                || claims.getIssuedAt().getTime() < System.currentTimeMillis() - statelessPrincipalMaxAge) {
+            return null;
+        }
+        UserPrincipal principal = jwtService.toPrincipal(claims);
+        if (principal == null || !accountStatusCache.isActive(principal.id())) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+    }
 }
@@ -1,30 +1,86 @@
 package com.fmahadybd.book_network_api_service.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.Nonnull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the JWT tokens.
+ * <p>
+ * The signing key and the parser are built once. Verified claims are cached, keyed by the SHA-256
+ * hash of the token, until the token expires, so that the signature of a token is checked once
+ * and not on every request that carries it.
+ */
 @Service
-public class JwtService {
+public class JwtService implements MeterBinder {
 
-    // Secret key for signing JWT tokens, injected from application properties
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey;
+    // Claim holding the family of the refresh tokens the access token was issued with
+    public static final String FAMILY_CLAIM = "family";
 
-    // JWT expiration time, also injected from application properties
-    @Value("${application.security.jwt.expiration}")
-    private long jwtExpiration;
+    // JWT expiration time, injected from application properties
+    private final long jwtExpiration;
+    // Signing key decoded once from the secret key in the application properties
+    private final Key signInKey;
+    // Thread-safe parser shared by all requests
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(
+            @Value("${application.security.jwt.secret-key}") String secretKey,
+            @Value("${application.security.jwt.expiration}") long jwtExpiration,
+            @Value("${application.security.jwt.verified-cache-size:10000}") long verifiedCacheSize
+    ) {
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        this.verifiedTokens = verifiedCacheSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilExpiration())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Verifies the token and returns its claims. A token is parsed and its signature checked the
+     * first time it is seen, then its claims are served from the cache until it expires.
+     *
+     * @param token the JWT token
+     * @return the claims contained in the token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, badly signed or expired
+     */
+    public Claims verify(String token) {
+        if (verifiedTokens == null) {
+            return extractAllClaims(token);
+        }
+        return verifiedTokens.get(hash(token), key -> extractAllClaims(token));
+    }
 
     /**
      * Extracts the username (subject) from the JWT token.
@@ -45,7 +101,7 @@ public class JwtService {
      * @return the claim value
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
         return claimsResolver.apply(claims);
     }
 
@@ -93,7 +149,7 @@ public class JwtService {
                 .setIssuedAt(new Date(System.currentTimeMillis()))  // Set the issue time (current time)
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))  // Set expiration time
                 .claim("authorities", authorities)  // Add authorities as a claim
-                .signWith(getSignInKey())  // Sign the token using the signing key
+                .signWith(signInKey)  // Sign the token using the signing key
                 .compact();  // Generate and return the token
     }
 
@@ -105,28 +161,48 @@ public class JwtService {
      * @return true if the token is valid, otherwise false
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
     }
 
     /**
-     * Checks if the JWT token is expired.
+     * Validates already verified claims by checking the username and expiration.
      *
-     * @param token the JWT token
-     * @return true if the token is expired, otherwise false
+     * @param claims the claims of the JWT token
+     * @param userDetails the user details for the user
+     * @return true if the token is valid, otherwise false
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date());
     }
 
     /**
-     * Extracts the expiration date from the JWT token.
+     * Builds the connected user from already verified claims, without loading it from the database.
      *
-     * @param token the JWT token
-     * @return the expiration date of the token
+     * @param claims the claims of the JWT token
+     * @return the principal, or {@code null} if the token does not carry the user id
+     */
+    public UserPrincipal toPrincipal(Claims claims) {
+        Integer id = claims.get("id", Integer.class);
+        if (id == null) {
+            return null;
+        }
+        List<?> authorities = claims.get("authorities", List.class);
+        return new UserPrincipal(
+                id,
+                claims.getSubject(),
+                claims.get("fullName", String.class),
+                authorities == null ? List.of() : authorities.stream()
+                        .<GrantedAuthority>map(authority -> new SimpleGrantedAuthority(authority.toString()))
+                        .toList());
+    }
+
+    /**
+     * @param claims the claims of the JWT token
+     * @return the token family, or {@code null} for a token issued without one
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public UUID extractFamily(Claims claims) {
+        String family = claims.get(FAMILY_CLAIM, String.class);
+        return family == null ? null : UUID.fromString(family);
     }
 
     /**
@@ -136,21 +212,52 @@ public class JwtService {
      * @return the claims contained in the token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())  // Set the signing key for token parsing
-                .build()
-                .parseClaimsJws(token)  // Parse the token to get the claims
+        return parser
+                .parseClaimsJws(token)  // Parse the token and check its signature and expiration
                 .getBody();  // Return the claims body
     }
 
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        if (verifiedTokens != null) {
+            CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt");
+        }
+    }
+
     /**
-     * Generates the signing key from the secret key.
-     *
-     * @return the signing key
+     * Hashes the token for the cache key, so that the cache does not hold the bearer tokens
+     * themselves.
      */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);  // Decode the secret key
-        return Keys.hmacShaKeyFor(keyBytes);  // Generate and return the signing key
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Expires every cached token at its own expiration time.
+     */
+    private static class UntilExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(@Nonnull String key, @Nonnull Claims claims, long currentTime) {
+            long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(@Nonnull String key, @Nonnull Claims claims, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(@Nonnull String key, @Nonnull Claims claims, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
     }
 }
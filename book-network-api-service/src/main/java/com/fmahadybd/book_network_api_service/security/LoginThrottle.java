@@ -0,0 +1,68 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import com.fmahadybd.book_network_api_service.common.TokenBuckets;
+import com.fmahadybd.book_network_api_service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.Nonnull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits the login attempts per account and per client address, before any password is
+ * hashed, so that a flood of logins is refused for the cost of a map lookup.
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+
+    private final TokenBuckets accounts;
+    private final TokenBuckets clients;
+    private final LongAdder accountThrottled = new LongAdder();
+    private final LongAdder clientThrottled = new LongAdder();
+
+    public LoginThrottle(
+            @Value("${application.security.login.account.capacity:10}") int accountCapacity,
+            @Value("${application.security.login.account.refill-period:60000}") long accountRefillPeriod,
+            @Value("${application.security.login.client.capacity:50}") int clientCapacity,
+            @Value("${application.security.login.client.refill-period:60000}") long clientRefillPeriod,
+            @Value("${application.security.login.max-keys:100000}") int maxKeys
+    ) {
+        this.accounts = new TokenBuckets(accountCapacity, Duration.ofMillis(accountRefillPeriod), maxKeys);
+        this.clients = new TokenBuckets(clientCapacity, Duration.ofMillis(clientRefillPeriod), maxKeys);
+    }
+
+    /**
+     * Takes a login attempt from the buckets of the client address and of the account.
+     *
+     * @throws TooManyRequestsException if either has no attempt left
+     */
+    public void acquire(String email, String clientAddress) {
+        Duration wait = clients.tryAcquire(clientAddress);
+        if (!wait.isZero()) {
+            clientThrottled.increment();
+            throw new TooManyRequestsException("Too many login attempts from this address, please retry later", wait);
+        }
+        wait = accounts.tryAcquire(email.toLowerCase(Locale.ROOT));
+        if (!wait.isZero()) {
+            accountThrottled.increment();
+            throw new TooManyRequestsException("Too many login attempts for this account, please retry later", wait);
+        }
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        FunctionCounter.builder("auth.login.throttled", accountThrottled, LongAdder::sum)
+                .description("Login attempts refused before hashing the password")
+                .tag("scope", "account")
+                .register(registry);
+        FunctionCounter.builder("auth.login.throttled", clientThrottled, LongAdder::sum)
+                .description("Login attempts refused before hashing the password")
+                .tag("scope", "client")
+                .register(registry);
+    }
+}
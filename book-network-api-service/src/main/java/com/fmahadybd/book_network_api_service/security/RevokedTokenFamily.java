@@ -0,0 +1,32 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entry of the denylist: the access tokens of a revoked family are refused until they expire.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class RevokedTokenFamily {
+    @Id
+    private UUID familyId;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,37 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevokedTokenFamilyRepository extends JpaRepository<RevokedTokenFamily, UUID> {
+
+        @Modifying
+        @Query(value = """
+                        INSERT INTO revoked_token_family (family_id, revoked_at, expires_at)
+                        VALUES (:familyId, :now, :expiresAt)
+                        ON CONFLICT (family_id) DO NOTHING
+                        """, nativeQuery = true)
+        int revoke(@Param("familyId") UUID familyId,
+                   @Param("now") LocalDateTime now,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+
+        @Query("""
+                        SELECT family.familyId
+                        FROM RevokedTokenFamily family
+                        WHERE family.revokedAt >= :since
+                        """)
+        List<UUID> findRevokedSince(@Param("since") LocalDateTime since);
+
+        @Modifying
+        @Query("""
+                        DELETE FROM RevokedTokenFamily family
+                        WHERE family.expiresAt < :now
+                        """)
+        int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,158 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import com.fmahadybd.book_network_api_service.common.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Denylist of the revoked token families, checked on every authenticated request.
+ * <p>
+ * The revoked families are kept in the {@code revoked_token_family} table and mirrored in an
+ * in-memory {@link BloomFilter}. A family that is not in the filter is not revoked, so the check
+ * costs a few hashes and no query for almost every request; only the families that are in the
+ * filter, the revoked ones and the rare false positives, are confirmed against the table.
+ * <p>
+ * The families revoked by other instances are picked up by a periodic sync. The filter cannot
+ * forget a family, so it is rebuilt from the table after the expired families are purged, and
+ * replaces the previous one only once it holds all the revoked families.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList implements MeterBinder {
+
+    // Families revoked slightly before the last sync are read again, to cover commits in flight
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final RevokedTokenFamilyRepository repository;
+    private final long accessTokenExpiration;
+    private final long expectedFamilies;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt by purge(), which also receives the families revoked meanwhile
+    private volatile BloomFilter rebuilding;
+    // null until the first sync, which reads the whole table
+    private volatile LocalDateTime syncedUntil;
+
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TokenRevocationList(
+            RevokedTokenFamilyRepository repository,
+            @Value("${application.security.jwt.expiration}") long accessTokenExpiration,
+            @Value("${application.security.jwt.revocation.expected-families:100000}") long expectedFamilies,
+            @Value("${application.security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.repository = repository;
+        this.accessTokenExpiration = accessTokenExpiration;
+        this.expectedFamilies = expectedFamilies;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedFamilies, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void load() {
+        sync();
+    }
+
+    /**
+     * @param familyId family of the token, {@code null} for the tokens issued without a family
+     * @return true if the family was revoked
+     */
+    public boolean isRevoked(UUID familyId) {
+        if (familyId == null || !filter.mightContain(familyId)) {
+            filtered.increment();
+            return false;
+        }
+        if (repository.existsById(familyId)) {
+            revoked.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes a family: its access tokens are refused until the last of them expires. Joins the
+     * transaction of the caller.
+     */
+    @Transactional
+    public void revoke(UUID familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        repository.revoke(familyId, now, now.plus(Duration.ofMillis(accessTokenExpiration)));
+        // Added before the commit: a rollback leaves a false positive, which the table corrects
+        filter.put(familyId);
+        BloomFilter rebuilt = rebuilding;
+        if (rebuilt != null) {
+            rebuilt.put(familyId);
+        }
+    }
+
+    /**
+     * Adds the families revoked since the last sync, by this instance or by another one.
+     */
+    @Scheduled(
+            fixedDelayString = "${application.security.jwt.revocation.sync-interval:30000}",
+            initialDelayString = "${application.security.jwt.revocation.sync-interval:30000}")
+    public synchronized void sync() {
+        LocalDateTime since = syncedUntil == null ? EPOCH : syncedUntil.minus(SYNC_OVERLAP);
+        LocalDateTime now = LocalDateTime.now();
+        BloomFilter current = filter;
+        repository.findRevokedSince(since).forEach(current::put);
+        syncedUntil = now;
+    }
+
+    /**
+     * Deletes the families whose access tokens have all expired, and rebuilds the filter without
+     * them. The previous filter answers the checks until the new one is filled.
+     */
+    @Scheduled(cron = "${application.security.jwt.revocation.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public synchronized void purge() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        BloomFilter rebuilt = new BloomFilter(expectedFamilies, falsePositiveRate);
+        rebuilding = rebuilt;
+        LocalDateTime now = LocalDateTime.now();
+        repository.findRevokedSince(EPOCH).forEach(rebuilt::put);
+        filter = rebuilt;
+        rebuilding = null;
+        // Revocations committed during the read are picked up by the next sync, like the other ones in flight
+        syncedUntil = now;
+        log.info("Purged {} expired revoked token families", purged);
+    }
+
+    @Override
+    public void bindTo(@Nonnull MeterRegistry registry) {
+        registerCheckCounter(registry, "filtered", filtered, "Revocation checks answered by the Bloom filter alone");
+        registerCheckCounter(registry, "revoked", revoked, "Revocation checks confirmed by the denylist table");
+        registerCheckCounter(registry, "false-positive", falsePositives,
+                "Revocation checks that passed the Bloom filter but were not in the denylist table");
+        Gauge.builder("jwt.revocation.filter.bytes", this, list -> list.filter.byteSize())
+                .description("Size of the Bloom filter of the revoked token families")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void registerCheckCounter(MeterRegistry registry, String result, LongAdder adder, String description) {
+        FunctionCounter.builder("jwt.revocation.checks", adder, LongAdder::sum)
+                .description(description)
+                .tag("result", result)
+                .register(registry);
+    }
+}
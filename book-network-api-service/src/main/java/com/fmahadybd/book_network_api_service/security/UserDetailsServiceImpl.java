@@ -1,22 +1,69 @@
 package com.fmahadybd.book_network_api_service.security;
 
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fmahadybd.book_network_api_service.user.User;
 import com.fmahadybd.book_network_api_service.user.UserRepository;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository repository;
+    private final AccountStatusCache accountStatusCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return repository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
+
+    /**
+     * Stores the password of a user rehashed with the current work factor, after a successful login.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User savedUser = repository.findByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        savedUser.setPassword(newPassword);
+        return savedUser;
+    }
+
+    /**
+     * Locks or unlocks the account. The tokens of a locked account are refused from the next
+     * request on, stateless principals included.
+     *
+     * @throws EntityNotFoundException if the user does not exist
+     */
+    @Transactional
+    public void setAccountLocked(Integer userId, boolean locked) {
+        if (repository.updateAccountLocked(userId, locked, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("No user found with ID:: " + userId);
+        }
+        accountStatusCache.evict(userId);
+    }
+
+    /**
+     * Enables or disables the account. The tokens of a disabled account are refused from the next
+     * request on, stateless principals included.
+     *
+     * @throws EntityNotFoundException if the user does not exist
+     */
+    @Transactional
+    public void setEnabled(Integer userId, boolean enabled) {
+        if (repository.updateEnabled(userId, enabled, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("No user found with ID:: " + userId);
+        }
+        accountStatusCache.evict(userId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import com.fmahadybd.book_network_api_service.user.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Immutable view of the connected user, as needed by the services: its id, email, full name and
+ * authorities.
+ * <p>
+ * In the stateless principal mode it is built from the claims of the JWT token, so that a request
+ * is authenticated without loading the user from the database. Otherwise the principal is the
+ * {@link User} entity, and {@link #of(Authentication)} maps it to this record.
+ *
+ * @param id          id of the user
+ * @param email       email of the user, which is also its username
+ * @param fullName    first name and last name of the user
+ * @param authorities authorities granted to the user
+ */
+public record UserPrincipal(
+        Integer id,
+        String email,
+        String fullName,
+        List<GrantedAuthority> authorities
+) implements AuthenticatedPrincipal, Serializable {
+
+    public UserPrincipal {
+        authorities = List.copyOf(authorities);
+    }
+
+    /**
+     * @param authentication an authenticated request, whose principal is either a
+     *                       {@code UserPrincipal} or a {@link User}
+     * @return the connected user
+     */
+    public static UserPrincipal of(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userPrincipal;
+        }
+        if (principal instanceof User user) {
+            return from(user);
+        }
+        throw new IllegalStateException("Unsupported principal type: " + principal.getClass().getName());
+    }
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getFullName(),
+                List.copyOf(user.getAuthorities()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,10 +1,80 @@
 package com.fmahadybd.book_network_api_service.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
-    Optional<Token> findByToken(String token);
+        Optional<Token> findByToken(String token);
+
+        /**
+         * Saves a code unless it is already in use. The pending changes, such as a user just
+         * registered, are flushed first so that the code can reference them.
+         *
+         * @return 1 if the code was saved, 0 if it is taken
+         */
+        @Modifying(flushAutomatically = true)
+        @Query(value = """
+                        INSERT INTO token (id, token, created_at, expires_at, user_id)
+                        VALUES (:id, :token, :now, :expiresAt, :userId)
+                        ON CONFLICT (token) DO NOTHING
+                        """, nativeQuery = true)
+        int insertIfAbsent(@Param("id") Integer id,
+                           @Param("token") String token,
+                           @Param("now") LocalDateTime now,
+                           @Param("expiresAt") LocalDateTime expiresAt,
+                           @Param("userId") Integer userId);
+
+        /**
+         * Uses up an unexpired code and enables its user, in a single statement.
+         *
+         * @return 1 if the account was activated, 0 if the code is unknown, expired or already used
+         */
+        @Modifying
+        @Query(value = """
+                        WITH validated AS (
+                            UPDATE token
+                            SET validated_at = :now
+                            WHERE token = :token
+                            AND validated_at IS NULL
+                            AND expires_at >= :now
+                            RETURNING user_id
+                        )
+                        UPDATE _user
+                        SET enabled = true,
+                        last_modified_date = :now
+                        FROM validated
+                        WHERE _user.id = validated.user_id
+                        """, nativeQuery = true)
+        int activate(@Param("token") String token, @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query(value = """
+                        DELETE FROM token
+                        WHERE id IN (
+                            SELECT id
+                            FROM token
+                            WHERE validated_at IS NULL
+                            AND expires_at < :before
+                            LIMIT :limit
+                        )
+                        """, nativeQuery = true)
+        int deleteExpired(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+        @Modifying
+        @Query(value = """
+                        DELETE FROM token
+                        WHERE id IN (
+                            SELECT id
+                            FROM token
+                            WHERE validated_at IS NOT NULL
+                            LIMIT :limit
+                        )
+                        """, nativeQuery = true)
+        int deleteValidated(@Param("limit") int limit);
 }
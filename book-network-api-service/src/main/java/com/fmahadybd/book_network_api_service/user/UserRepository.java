@@ -1,9 +1,51 @@
 package com.fmahadybd.book_network_api_service.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
-    Optional<User> findByEmail(String username);
-}
\ No newline at end of file
+        Optional<User> findByEmail(String username);
+
+        /**
+         * @return whether the account is enabled and not locked, empty if the user does not exist
+         */
+        @Query(value = """
+                        SELECT enabled AND NOT account_locked
+                        FROM _user
+                        WHERE id = :userId
+                        """, nativeQuery = true)
+        Optional<Boolean> isActive(@Param("userId") Integer userId);
+
+        /**
+         * @return 1 if the account was updated, 0 if the user does not exist
+         */
+        @Modifying
+        @Query(value = """
+                        UPDATE _user
+                        SET account_locked = :locked,
+                        last_modified_date = :now
+                        WHERE id = :userId
+                        """, nativeQuery = true)
+        int updateAccountLocked(@Param("userId") Integer userId,
+                                @Param("locked") boolean locked,
+                                @Param("now") LocalDateTime now);
+
+        /**
+         * @return 1 if the account was updated, 0 if the user does not exist
+         */
+        @Modifying
+        @Query(value = """
+                        UPDATE _user
+                        SET enabled = :enabled,
+                        last_modified_date = :now
+                        WHERE id = :userId
+                        """, nativeQuery = true)
+        int updateEnabled(@Param("userId") Integer userId,
+                          @Param("enabled") boolean enabled,
+                          @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,96 @@
+-- Schema as created by Hibernate before the migrations, so that databases created by
+-- 'ddl-auto: update' are baselined at this version. Constraint names are the generated ones.
+
+CREATE SEQUENCE _user_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_transaction_history_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE feedback_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE role_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE token_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE _user (
+    id integer NOT NULL,
+    firstname varchar(255),
+    lastname varchar(255),
+    date_of_birth date,
+    email varchar(255) UNIQUE,
+    password varchar(255),
+    account_locked boolean NOT NULL,
+    enabled boolean NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE role (
+    id integer NOT NULL,
+    name varchar(255) UNIQUE,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE _user_roles (
+    user_id integer NOT NULL,
+    roles_id integer NOT NULL
+);
+
+CREATE TABLE token (
+    id integer NOT NULL,
+    token varchar(255) UNIQUE,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    validated_at timestamp(6),
+    user_id integer NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE book (
+    id integer NOT NULL,
+    title varchar(255),
+    author_name varchar(255),
+    isbn varchar(255),
+    synopsis varchar(255),
+    book_cover varchar(255),
+    archived boolean NOT NULL,
+    shareable boolean NOT NULL,
+    owner_id integer,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE book_transaction_history (
+    id integer NOT NULL,
+    user_id integer,
+    book_id integer,
+    returned boolean NOT NULL,
+    return_approved boolean NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE feedback (
+    id integer NOT NULL,
+    note float(53),
+    comment varchar(255),
+    book_id integer,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6),
+    created_by integer NOT NULL,
+    last_modified_by integer,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE _user_roles ADD CONSTRAINT FKtq7v0vo9kka3qeaw2alou2j8p FOREIGN KEY (roles_id) REFERENCES role;
+ALTER TABLE _user_roles ADD CONSTRAINT FK1knb08qasyc3njr6m6je05u4f FOREIGN KEY (user_id) REFERENCES _user;
+ALTER TABLE token ADD CONSTRAINT FKiblu4cjwvyntq3ugo31klp1c6 FOREIGN KEY (user_id) REFERENCES _user;
+ALTER TABLE book ADD CONSTRAINT FK61m8am98w4y4vgpl82sojy8bh FOREIGN KEY (owner_id) REFERENCES _user;
+ALTER TABLE book_transaction_history ADD CONSTRAINT FKetks95hi6ay47e16sj6vdv9g9 FOREIGN KEY (book_id) REFERENCES book;
+ALTER TABLE book_transaction_history ADD CONSTRAINT FKh081geal7xoydl9vyh7cbf4wc FOREIGN KEY (user_id) REFERENCES _user;
+ALTER TABLE feedback ADD CONSTRAINT FKgclyi456gw0lcd6xcfj2l7r6s FOREIGN KEY (book_id) REFERENCES book;
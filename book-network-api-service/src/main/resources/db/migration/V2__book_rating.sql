@@ -0,0 +1,37 @@
+-- Rating aggregate and histogram of the books, maintained with every saved feedback instead of
+-- being computed from the feedbacks on every read
+ALTER TABLE book
+    ADD COLUMN rating_count bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_sum float(53) DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars0 bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars1 bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars2 bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars3 bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars4 bigint DEFAULT 0 NOT NULL,
+    ADD COLUMN rating_stars5 bigint DEFAULT 0 NOT NULL;
+
+-- The existing feedbacks, bucketed like BookRating.toStars: a note counts in its whole number of stars
+UPDATE book SET
+    rating_count = rating.count,
+    rating_sum = rating.sum,
+    rating_stars0 = rating.stars0,
+    rating_stars1 = rating.stars1,
+    rating_stars2 = rating.stars2,
+    rating_stars3 = rating.stars3,
+    rating_stars4 = rating.stars4,
+    rating_stars5 = rating.stars5
+FROM (
+    SELECT book_id,
+           count(note) AS count,
+           coalesce(sum(note), 0) AS sum,
+           count(*) FILTER (WHERE note < 1) AS stars0,
+           count(*) FILTER (WHERE note >= 1 AND note < 2) AS stars1,
+           count(*) FILTER (WHERE note >= 2 AND note < 3) AS stars2,
+           count(*) FILTER (WHERE note >= 3 AND note < 4) AS stars3,
+           count(*) FILTER (WHERE note >= 4 AND note < 5) AS stars4,
+           count(*) FILTER (WHERE note >= 5) AS stars5
+    FROM feedback
+    WHERE book_id IS NOT NULL
+    GROUP BY book_id
+) rating
+WHERE book.id = rating.book_id;
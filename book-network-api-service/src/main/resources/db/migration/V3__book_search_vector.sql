@@ -0,0 +1,10 @@
+-- Full-text search over the catalog, kept in sync by PostgreSQL on every insert and update of a book.
+-- Adding a stored generated column rewrites the table, which computes it for the existing books.
+ALTER TABLE book ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(isbn, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(author_name, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(synopsis, '')), 'C')
+) STORED;
+
+CREATE INDEX book_search_vector_idx ON book USING GIN (search_vector);
@@ -0,0 +1,28 @@
+-- Indexes of the hot queries. The catalog only ever lists displayable books, so its indexes are
+-- partial on 'archived = false AND shareable = true' rather than leading with the two flags.
+
+-- findAllDisplayableBooks, findDisplayableBooksAfter, findLatestDisplayableBooks
+CREATE INDEX book_displayable_created_date_idx ON book (created_date DESC, id DESC)
+    WHERE archived = false AND shareable = true;
+
+-- findAllByOwnerId, findBooksByOwnerIdAfter and the history of the books of an owner
+CREATE INDEX book_owner_created_date_idx ON book (owner_id, created_date DESC, id DESC);
+
+-- isAlreadyBorrowed, isAlreadyBorrowedByUser, findByBookIdAndUserId, findReturnedBookIds:
+-- only the loans whose return is not approved yet
+CREATE INDEX book_transaction_history_open_idx ON book_transaction_history (book_id, user_id)
+    WHERE return_approved = false;
+
+-- findAllBorrowedBooks, findBorrowedBooksAfter, streamHistory
+CREATE INDEX book_transaction_history_user_created_date_idx
+    ON book_transaction_history (user_id, created_date DESC, id DESC);
+
+-- findAllReturnedBooks, findReturnedBooksAfter, streamHistory
+CREATE INDEX book_transaction_history_book_created_date_idx
+    ON book_transaction_history (book_id, created_date DESC, id DESC);
+
+-- findAllByBookId, findAllByBookIdAfter, findVersionByBookId and the rating reconciliation
+CREATE INDEX feedback_book_created_date_idx ON feedback (book_id, created_date DESC, id DESC);
+
+-- Roles of a user, loaded on every authentication
+CREATE INDEX _user_roles_user_idx ON _user_roles (user_id);
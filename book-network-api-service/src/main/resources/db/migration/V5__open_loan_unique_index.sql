@@ -0,0 +1,7 @@
+-- A book has at most one loan whose return is not approved yet. Concurrent borrows of the same book
+-- conflict on this index, and the borrow statement inserts nothing for the losers.
+CREATE UNIQUE INDEX book_transaction_history_open_loan_idx ON book_transaction_history (book_id)
+    WHERE return_approved = false;
+
+-- Superseded by the unique index
+DROP INDEX book_transaction_history_open_idx;
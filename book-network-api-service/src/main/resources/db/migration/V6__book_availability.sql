@@ -0,0 +1,10 @@
+-- Availability of the books, maintained by the borrow and the approval of the returns instead of
+-- being computed from the open loans on every read
+ALTER TABLE book ADD COLUMN available boolean DEFAULT true NOT NULL;
+
+UPDATE book SET available = false
+WHERE id IN (SELECT book_id FROM book_transaction_history WHERE return_approved = false);
+
+-- findAllAvailableBooks, findAvailableBooksAfter
+CREATE INDEX book_available_created_date_idx ON book (created_date DESC, id DESC)
+    WHERE archived = false AND shareable = true AND available = true;
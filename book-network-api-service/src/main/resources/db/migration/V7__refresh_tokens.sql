@@ -0,0 +1,31 @@
+-- Refresh tokens, stored as SHA-256 hashes. Every login starts a family, every refresh uses up the
+-- presented token and adds the next one to the same family.
+CREATE SEQUENCE refresh_token_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE refresh_token (
+    id integer NOT NULL,
+    token_hash varchar(255) NOT NULL UNIQUE,
+    family_id uuid NOT NULL,
+    user_id integer NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    used_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE refresh_token ADD CONSTRAINT refresh_token_user_fk FOREIGN KEY (user_id) REFERENCES _user;
+
+-- revoke, purgeExpired
+CREATE INDEX refresh_token_family_idx ON refresh_token (family_id);
+CREATE INDEX refresh_token_expires_at_idx ON refresh_token (expires_at);
+
+-- Denylist of the revoked families, kept until the last access token of the family expires
+CREATE TABLE revoked_token_family (
+    family_id uuid NOT NULL,
+    revoked_at timestamp(6) NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    PRIMARY KEY (family_id)
+);
+
+-- findRevokedSince
+CREATE INDEX revoked_token_family_revoked_at_idx ON revoked_token_family (revoked_at);
@@ -0,0 +1,22 @@
+-- Emails written in the transaction of the change that causes them, and sent afterwards by the
+-- outbox dispatcher
+CREATE SEQUENCE email_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE email_outbox (
+    id integer NOT NULL,
+    recipient varchar(255) NOT NULL,
+    subject varchar(255) NOT NULL,
+    body text NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    next_attempt_at timestamp(6) NOT NULL,
+    attempts integer NOT NULL,
+    sent_at timestamp(6),
+    failed_at timestamp(6),
+    last_error text,
+    PRIMARY KEY (id)
+);
+
+-- findDue, countPending
+CREATE INDEX email_outbox_due_idx ON email_outbox (next_attempt_at) WHERE sent_at IS NULL AND failed_at IS NULL;
+-- deleteSentBefore
+CREATE INDEX email_outbox_sent_at_idx ON email_outbox (sent_at) WHERE sent_at IS NOT NULL;
@@ -0,0 +1,7 @@
+-- The codes are looked up by the unique index on token.token, kept small by purging the codes
+-- that were used or expired long ago
+
+-- deleteExpired
+CREATE INDEX token_expires_at_idx ON token (expires_at) WHERE validated_at IS NULL;
+-- deleteValidated
+CREATE INDEX token_validated_at_idx ON token (validated_at) WHERE validated_at IS NOT NULL;
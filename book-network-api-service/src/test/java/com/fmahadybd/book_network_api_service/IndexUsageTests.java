@@ -0,0 +1,258 @@
+package com.fmahadybd.book_network_api_service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fmahadybd.book_network_api_service.book.BookRepository;
+import com.fmahadybd.book_network_api_service.feedback.FeedBackRepository;
+import com.fmahadybd.book_network_api_service.hostory.BookTransactionHistoryRepository;
+
+/**
+ * Query plans of the hot queries, in the SQL Hibernate generates for them: each repository method is
+ * run once, its statement is captured by a {@link StatementInspector}, prepared, and explained with a
+ * sample value for each parameter type, as the driver would bind them.
+ * <p>
+ * The planner sees a few thousand analyzed rows, with negative ids, so that it weighs the indexes as
+ * on real data rather than breaking ties between empty ones. Sequential scans are disabled on top:
+ * a query that lost its index falls back to a sequential scan anyway, and fails here.
+ */
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.fmahadybd.book_network_api_service.IndexUsageTests$StatementCapture",
+		"application.scheduling.enabled=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTests {
+
+	private static final Pageable PAGE = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "createdDate", "id"));
+	private static final Pageable NEXT_ROWS = PageRequest.of(0, 11);
+	private static final LocalDateTime CURSOR_DATE = LocalDateTime.of(2030, 1, 1, 0, 0);
+	// Values bound to the prepared statements by parameter type, ids and page bounds being numbers
+	private static final Map<String, String> SAMPLE_VALUES = Map.of(
+			"integer", "-2",
+			"bigint", "11",
+			"double precision", "4.5",
+			"boolean", "false",
+			"text", "dune",
+			"character varying", "dune",
+			"timestamp without time zone", "2030-01-01 00:00:00",
+			"integer[]", "{1}");
+
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private BookTransactionHistoryRepository historyRepository;
+	@Autowired
+	private FeedBackRepository feedbackRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	void insertSampleRows() {
+		deleteSampleRows();
+		// 100 owners of 100 books each, one loan and one feedback per book, 1% of the books about Dune
+		jdbcTemplate.execute("""
+				INSERT INTO _user (id, firstname, lastname, email, password, account_locked, enabled, created_date)
+				SELECT -i, 'Jane', 'Reader', 'index-usage-' || i || '@mail.com', 'password', false, true, now()
+				FROM generate_series(1, 100) i;
+				INSERT INTO book (id, title, author_name, isbn, synopsis, archived, shareable, available, owner_id,
+				created_date, created_by)
+				SELECT -i, 'Title ' || i || CASE WHEN i % 100 = 0 THEN ' dune' ELSE '' END, 'Author', 'ISBN', 'Synopsis',
+				i % 50 = 0, i % 10 <> 0, i % 3 <> 0, -(1 + i % 100), now() - i * interval '1 minute', -(1 + i % 100)
+				FROM generate_series(1, 10000) i;
+				INSERT INTO book_transaction_history (id, user_id, book_id, returned, return_approved, created_date, created_by)
+				SELECT -i, -(1 + (i + 7) % 100), -i, i % 3 <> 0, i % 3 <> 0, now() - i * interval '1 minute', -(1 + i % 100)
+				FROM generate_series(1, 10000) i;
+				INSERT INTO feedback (id, note, comment, book_id, created_date, created_by)
+				SELECT -i, 4, 'Comment', -i, now() - i * interval '1 minute', -(1 + (i + 7) % 100)
+				FROM generate_series(1, 10000) i;
+				ANALYZE _user, book, book_transaction_history, feedback;
+				""");
+	}
+
+	@AfterAll
+	void deleteSampleRows() {
+		jdbcTemplate.execute("""
+				DELETE FROM feedback WHERE id < 0;
+				DELETE FROM book_transaction_history WHERE id < 0;
+				DELETE FROM book WHERE id < 0;
+				DELETE FROM _user WHERE id < 0;
+				""");
+	}
+
+	@Test
+	void displayableBooksUseThePartialCatalogIndex() {
+		assertUsesIndexes(() -> bookRepository.findAllDisplayableBooks(PAGE, 1),
+				"book", "book_displayable_created_date_idx");
+		assertUsesIndexes(() -> bookRepository.findDisplayableBooksAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"book", "book_displayable_created_date_idx");
+		assertUsesIndexes(() -> bookRepository.findLatestDisplayableBooks(PageRequest.of(0, 1001)),
+				"book", "book_displayable_created_date_idx");
+	}
+
+	@Test
+	void availableBooksUseThePartialAvailabilityIndex() {
+		assertUsesIndexes(() -> bookRepository.findAllAvailableBooks(PAGE, 1),
+				"book", "book_available_created_date_idx");
+		assertUsesIndexes(() -> bookRepository.findAvailableBooksAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"book", "book_available_created_date_idx");
+	}
+
+	@Test
+	void booksOfAnOwnerUseTheOwnerIndex() {
+		assertUsesIndexes(() -> bookRepository.findAllByOwnerId(PAGE, 1),
+				"book", "book_owner_created_date_idx");
+		assertUsesIndexes(() -> bookRepository.findBooksByOwnerIdAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"book", "book_owner_created_date_idx");
+	}
+
+	@Test
+	void searchUsesTheSearchVectorIndex() {
+		assertUsesIndexes(() -> bookRepository.searchDisplayableBookIds("dune", 1, PageRequest.of(0, 10)),
+				"book", "book_search_vector_idx");
+	}
+
+	/**
+	 * On empty tables both indexes leading with the book cost the same, on real data the partial
+	 * index of the open loans is the smaller one.
+	 */
+	@Test
+	void openLoansUseABookIndex() {
+		assertUsesOneOf(() -> historyRepository.isAlreadyBorrowed(1),
+				"book_transaction_history", "book_transaction_history_open_loan_idx",
+				"book_transaction_history_book_created_date_idx");
+		assertUsesOneOf(() -> historyRepository.isAlreadyBorrowedByUser(1, 1),
+				"book_transaction_history", "book_transaction_history_open_loan_idx",
+				"book_transaction_history_book_created_date_idx");
+	}
+
+	@Test
+	void borrowedBooksUseTheBorrowerIndex() {
+		assertUsesIndexes(() -> historyRepository.findAllBorrowedBooks(PAGE, 1),
+				"book_transaction_history", "book_transaction_history_user_created_date_idx");
+		assertUsesIndexes(() -> historyRepository.findBorrowedBooksAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"book_transaction_history", "book_transaction_history_user_created_date_idx");
+	}
+
+	@Test
+	void returnedBooksUseTheOwnerAndBookHistoryIndexes() {
+		assertUsesIndexes(() -> historyRepository.findAllReturnedBooks(PAGE, 1),
+				"book_transaction_history", "book_owner_created_date_idx",
+				"book_transaction_history_book_created_date_idx");
+		assertUsesIndexes(() -> historyRepository.findReturnedBooksAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"book_transaction_history", "book_owner_created_date_idx",
+				"book_transaction_history_book_created_date_idx");
+	}
+
+	@Test
+	void feedbacksOfABookUseTheFeedbackIndex() {
+		assertUsesIndexes(() -> feedbackRepository.findAllByBookId(1, PAGE),
+				"feedback", "feedback_book_created_date_idx");
+		assertUsesIndexes(() -> feedbackRepository.findAllByBookIdAfter(1, CURSOR_DATE, 1000, NEXT_ROWS),
+				"feedback", "feedback_book_created_date_idx");
+	}
+
+	private void assertUsesIndexes(Runnable query, String table, String... indexes) {
+		String plan = explain(query);
+		for (String index : indexes) {
+			assertTrue(plan.contains(index), () -> "Expected " + index + " in\n" + plan);
+		}
+		assertFalse(plan.contains("Seq Scan on " + table + " "), () -> "Sequential scan of " + table + " in\n" + plan);
+	}
+
+	private void assertUsesOneOf(Runnable query, String table, String... indexes) {
+		String plan = explain(query);
+		assertTrue(Arrays.stream(indexes).anyMatch(plan::contains),
+				() -> "Expected one of " + Arrays.toString(indexes) + " in\n" + plan);
+		assertFalse(plan.contains("Seq Scan on " + table + " "), () -> "Sequential scan of " + table + " in\n" + plan);
+	}
+
+	/**
+	 * Runs the repository method, then explains the single statement it sent, with a custom plan like
+	 * the ones of the first executions of a statement.
+	 */
+	private String explain(Runnable query) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		return transaction.execute(status -> {
+			List<String> statements = StatementCapture.capture(query);
+			assertEquals(1, statements.size(), () -> "Expected a single statement, got " + statements);
+			String sql = statements.get(0);
+			// Prepared statements only take numbered parameters
+			StringBuilder numbered = new StringBuilder();
+			int parameters = 0;
+			for (char c : sql.toCharArray()) {
+				if (c == '?') {
+					numbered.append('$').append(++parameters);
+				} else {
+					numbered.append(c);
+				}
+			}
+			jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+			jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_custom_plan");
+			jdbcTemplate.execute("PREPARE index_usage AS " + numbered);
+			try {
+				List<String> types = jdbcTemplate.queryForList(
+						"SELECT unnest(parameter_types)::text FROM pg_prepared_statements WHERE name = 'index_usage'", String.class);
+				String arguments = types.isEmpty() ? "" : types.stream()
+						.map(type -> "'" + SAMPLE_VALUES.getOrDefault(type, "") + "'")
+						.collect(Collectors.joining(", ", "(", ")"));
+				List<String> lines = jdbcTemplate.queryForList("EXPLAIN EXECUTE index_usage" + arguments, String.class);
+				return String.join("\n", lines);
+			} finally {
+				jdbcTemplate.execute("DEALLOCATE index_usage");
+			}
+		});
+	}
+
+	/**
+	 * Records the SQL Hibernate sends from the current thread, while {@link #capture(Runnable)} runs.
+	 */
+	public static class StatementCapture implements StatementInspector {
+
+		private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+		static List<String> capture(Runnable query) {
+			List<String> statements = new ArrayList<>();
+			STATEMENTS.set(statements);
+			try {
+				query.run();
+			} finally {
+				STATEMENTS.remove();
+			}
+			return statements;
+		}
+
+		@Override
+		public String inspect(String sql) {
+			List<String> statements = STATEMENTS.get();
+			if (statements != null) {
+				statements.add(sql);
+			}
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.fmahadybd.book_network_api_service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * A database created by Hibernate before the migrations existed, holding the schema of
+ * {@code V1__initial_schema.sql} and no Flyway history, is baselined at version 1 and brought up to
+ * date by the later migrations, with their backfills.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+class MigrationTests {
+
+	private static final String SCHEMA = "migration_test";
+
+	@Value("${spring.datasource.url}")
+	private String url;
+	@Value("${spring.datasource.username}")
+	private String username;
+	@Value("${spring.datasource.password}")
+	private String password;
+
+	private SingleConnectionDataSource dataSource;
+
+	@AfterEach
+	void tearDown() {
+		if (dataSource != null) {
+			new JdbcTemplate(dataSource).execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void baselineSchemaIsMigratedWithBackfills() {
+		dataSource = new SingleConnectionDataSource(url, username, password, true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+
+		// The schema Hibernate created, without any history of the migrations
+		flyway().target("1").load().migrate();
+		jdbcTemplate.execute("DROP TABLE " + SCHEMA + ".flyway_schema_history");
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		LocalDateTime now = LocalDateTime.now();
+		jdbcTemplate.update("""
+				INSERT INTO _user (id, firstname, lastname, email, password, account_locked, enabled, created_date)
+				VALUES (1, 'Jane', 'Reader', 'jane@mail.com', 'password', false, true, ?)
+				""", now);
+		jdbcTemplate.update("""
+				INSERT INTO book (id, title, author_name, isbn, synopsis, archived, shareable, owner_id, created_date, created_by)
+				VALUES (1, 'Dune', 'Frank Herbert', '9780441013593', 'Desert planet', false, true, 1, ?, 1),
+				       (2, 'Emma', 'Jane Austen', '9780141439587', 'Matchmaking', false, true, 1, ?, 1)
+				""", now, now);
+		jdbcTemplate.update("""
+				INSERT INTO feedback (id, note, comment, book_id, created_date, created_by)
+				VALUES (1, 4.5, 'Great', 1, ?, 1), (2, 2.0, 'Slow', 1, ?, 1), (3, 5.0, 'Classic', 1, ?, 1)
+				""", now, now, now);
+		jdbcTemplate.update("""
+				INSERT INTO book_transaction_history (id, user_id, book_id, returned, return_approved, created_date, created_by)
+				VALUES (1, 1, 2, false, false, ?, 1)
+				""", now);
+
+		flyway().baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		Map<String, Object> dune = jdbcTemplate.queryForMap("SELECT * FROM book WHERE id = 1");
+		assertEquals(3L, dune.get("rating_count"));
+		assertEquals(11.5, (Double) dune.get("rating_sum"), 1e-9);
+		assertEquals(0L, dune.get("rating_stars0"));
+		assertEquals(1L, dune.get("rating_stars2"));
+		assertEquals(1L, dune.get("rating_stars4"));
+		assertEquals(1L, dune.get("rating_stars5"));
+		assertEquals(0L, jdbcTemplate.queryForObject("SELECT rating_count FROM book WHERE id = 2", Long.class));
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT search_vector @@ to_tsquery('english', 'desert & herbert') FROM book WHERE id = 1", Boolean.class));
+		assertTrue(jdbcTemplate.queryForObject("SELECT available FROM book WHERE id = 1", Boolean.class));
+		assertFalse(jdbcTemplate.queryForObject("SELECT available FROM book WHERE id = 2", Boolean.class));
+	}
+
+	private FluentConfiguration flyway() {
+		return Flyway.configure().dataSource(dataSource).schemas(SCHEMA);
+	}
+}
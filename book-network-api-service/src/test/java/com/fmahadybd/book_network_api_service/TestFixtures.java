@@ -0,0 +1,112 @@
+package com.fmahadybd.book_network_api_service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fmahadybd.book_network_api_service.book.BookRequest;
+import com.fmahadybd.book_network_api_service.book.BookService;
+import com.fmahadybd.book_network_api_service.book.CatalogSnapshot;
+import com.fmahadybd.book_network_api_service.role.RoleRepository;
+import com.fmahadybd.book_network_api_service.user.User;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
+
+/**
+ * Users and books of the integration tests, committed for real and deleted again by
+ * {@link #deleteAll()}, with everything that refers to them, so that tests do not see the rows of
+ * the previous ones.
+ * <p>
+ * Imported with {@code @Import(TestFixtures.class)}, and cleaned in an {@code @AfterEach}.
+ */
+@TestComponent
+public class TestFixtures {
+
+	public static final String PASSWORD = "password";
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private CatalogSnapshot catalogSnapshot;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Integer> userIds = new ArrayList<>();
+
+	/**
+	 * @return a new enabled user, whose password is {@link #PASSWORD} hashed with {@code encodedPassword}
+	 */
+	public synchronized User newUser(String encodedPassword) {
+		User user = userRepository.save(User.builder()
+				.firstname("Jane")
+				.lastname("Reader")
+				.email(UUID.randomUUID() + "@mail.com")
+				.password(encodedPassword)
+				.enabled(true)
+				.roles(List.of(roleRepository.findByName("USER").orElseThrow()))
+				.build());
+		userIds.add(user.getId());
+		return user;
+	}
+
+	/**
+	 * @return the authentication of a new enabled user, whose password is not used
+	 */
+	public Authentication newUser() {
+		return authentication(newUser(PASSWORD));
+	}
+
+	public static Authentication authentication(User user) {
+		return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+	}
+
+	/**
+	 * Saves a shareable book of the owner.
+	 */
+	public Integer newBook(Authentication owner, String title) {
+		SecurityContextHolder.getContext().setAuthentication(owner);
+		try {
+			return bookService.save(new BookRequest(null, title, "Author", "ISBN", "Synopsis", true), owner);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	/**
+	 * Also registers for deletion a user created by the code under test.
+	 */
+	public synchronized void track(String email) {
+		userRepository.findByEmail(email).ifPresent(user -> userIds.add(user.getId()));
+	}
+
+	/**
+	 * Deletes the users created since the last call, with their books, loans, feedbacks and tokens.
+	 */
+	public synchronized void deleteAll() {
+		if (userIds.isEmpty()) {
+			return;
+		}
+		Integer[] ids = userIds.toArray(Integer[]::new);
+		String users = "(SELECT unnest(?::integer[]))";
+		String books = "(SELECT id FROM book WHERE owner_id IN " + users + ")";
+		jdbcTemplate.update("DELETE FROM feedback WHERE book_id IN " + books + " OR created_by IN " + users, ids, ids);
+		jdbcTemplate.update("DELETE FROM book_transaction_history WHERE book_id IN " + books + " OR user_id IN " + users, ids, ids);
+		jdbcTemplate.update("DELETE FROM book WHERE owner_id IN " + users, (Object) ids);
+		jdbcTemplate.update("DELETE FROM refresh_token WHERE user_id IN " + users, (Object) ids);
+		jdbcTemplate.update("DELETE FROM token WHERE user_id IN " + users, (Object) ids);
+		jdbcTemplate.update("DELETE FROM _user_roles WHERE user_id IN " + users, (Object) ids);
+		jdbcTemplate.update("DELETE FROM _user WHERE id IN " + users, (Object) ids);
+		userIds.clear();
+		catalogSnapshot.invalidate();
+	}
+}
@@ -0,0 +1,121 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fmahadybd.book_network_api_service.exception.InvalidTokenException;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+		"application.scheduling.enabled=false",
+		"application.security.activation-code.purge-batch-size=2"
+})
+class ActivationCodeStoreTests {
+
+	@Autowired
+	private AuthenticationService authenticationService;
+	@Autowired
+	private ActivationCodeStore activationCodeStore;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void accountIsActivatedWithASingleStatement() {
+		String email = register();
+		String code = codes(email).get(0);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		try {
+			statistics.clear();
+			authenticationService.activateAccount(code);
+			assertEquals(1, statistics.getPrepareStatementCount());
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+		assertTrue(userRepository.findByEmail(email).orElseThrow().isEnabled());
+		// Following the link again is harmless
+		authenticationService.activateAccount(code);
+	}
+
+	@Test
+	void expiredCodeIsReplacedByANewOne() {
+		String email = register();
+		String code = codes(email).get(0);
+		jdbcTemplate.update("UPDATE token SET expires_at = now() - interval '1 minute' WHERE token = ?", code);
+
+		assertThrows(InvalidTokenException.class, () -> authenticationService.activateAccount(code));
+
+		assertFalse(userRepository.findByEmail(email).orElseThrow().isEnabled());
+		List<String> codes = codes(email);
+		assertEquals(2, codes.size());
+		String newCode = codes.stream().filter(candidate -> !candidate.equals(code)).findFirst().orElseThrow();
+		assertNotEquals(code, newCode);
+		authenticationService.activateAccount(newCode);
+		assertTrue(userRepository.findByEmail(email).orElseThrow().isEnabled());
+	}
+
+	@Test
+	void unknownCodeIsRefused() {
+		assertThrows(InvalidTokenException.class, () -> authenticationService.activateAccount("not a code"));
+	}
+
+	@Test
+	void usedAndLongExpiredCodesArePurgedInBatches() {
+		String used = register();
+		authenticationService.activateAccount(codes(used).get(0));
+		String expiredLongAgo = register();
+		jdbcTemplate.update("UPDATE token SET expires_at = now() - interval '2 days' WHERE user_id = "
+				+ "(SELECT id FROM _user WHERE email = ?)", expiredLongAgo);
+		String expiredRecently = register();
+		jdbcTemplate.update("UPDATE token SET expires_at = now() - interval '1 hour' WHERE user_id = "
+				+ "(SELECT id FROM _user WHERE email = ?)", expiredRecently);
+		String pending = register();
+
+		activationCodeStore.purge();
+
+		assertEquals(0, codes(used).size());
+		assertEquals(0, codes(expiredLongAgo).size());
+		assertEquals(1, codes(expiredRecently).size());
+		assertEquals(1, codes(pending).size());
+	}
+
+	private String register() {
+		String email = UUID.randomUUID() + "@mail.com";
+		authenticationService.register(RegistrationRequest.builder()
+				.firstname("Jane")
+				.lastname("Reader")
+				.email(email)
+				.password("password")
+				.build());
+		return email;
+	}
+
+	private List<String> codes(String email) {
+		return jdbcTemplate.queryForList("""
+				SELECT token.token
+				FROM token
+				JOIN _user ON _user.id = token.user_id
+				WHERE _user.email = ?
+				""", String.class, email);
+	}
+}
@@ -0,0 +1,64 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.exception.TooManyRequestsException;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
+
+@SpringBootTest
+@Import(TestFixtures.class)
+class AuthenticationServiceTests {
+
+	@Autowired
+	private AuthenticationService authenticationService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private TestFixtures fixtures;
+
+	private String email;
+
+	@BeforeEach
+	void setUp() {
+		// Hashed with a lower work factor than the configured one
+		email = fixtures.newUser(new BCryptPasswordEncoder(4).encode(TestFixtures.PASSWORD)).getEmail();
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void outdatedHashesAreUpgradedOnLogin() {
+		login(TestFixtures.PASSWORD, "10.0.0.1");
+		String password = userRepository.findByEmail(email).orElseThrow().getPassword();
+		assertTrue(password.startsWith("$2a$10$"), password);
+		login(TestFixtures.PASSWORD, "10.0.0.1");
+	}
+
+	@Test
+	void loginFloodsOnAnAccountAreRefusedBeforeHashing() {
+		for (int i = 0; i < 10; i++) {
+			String clientAddress = "10.0.1." + i;
+			assertThrows(BadCredentialsException.class, () -> login("wrong password", clientAddress));
+		}
+		assertThrows(TooManyRequestsException.class, () -> login(TestFixtures.PASSWORD, "10.0.1.99"));
+	}
+
+	private AuthenticationResponse login(String password, String clientAddress) {
+		return authenticationService.authenticate(
+				AuthenticationRequest.builder().email(email).password(password).build(), clientAddress);
+	}
+}
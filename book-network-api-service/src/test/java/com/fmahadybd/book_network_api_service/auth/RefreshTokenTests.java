@@ -0,0 +1,94 @@
+package com.fmahadybd.book_network_api_service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.exception.InvalidTokenException;
+import com.fmahadybd.book_network_api_service.security.JwtService;
+import com.fmahadybd.book_network_api_service.security.TokenRevocationList;
+
+/**
+ * Refresh token rotation: each refresh token works once, and replaying one revokes the whole login.
+ */
+@SpringBootTest
+@Import(TestFixtures.class)
+class RefreshTokenTests {
+
+	@Autowired
+	private AuthenticationService authenticationService;
+	@Autowired
+	private JwtService jwtService;
+	@Autowired
+	private TokenRevocationList revocationList;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	private String email;
+
+	@BeforeEach
+	void setUp() {
+		email = fixtures.newUser(passwordEncoder.encode(TestFixtures.PASSWORD)).getEmail();
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void refreshTokensAreRotated() {
+		AuthenticationResponse login = login();
+		AuthenticationResponse refreshed = authenticationService.refresh(new RefreshTokenRequest(login.getRefreshToken()));
+
+		assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+		assertFalse(isRevoked(refreshed.getToken()));
+		authenticationService.refresh(new RefreshTokenRequest(refreshed.getRefreshToken()));
+	}
+
+	@Test
+	void replayingARefreshTokenRevokesTheFamily() {
+		AuthenticationResponse login = login();
+		AuthenticationResponse refreshed = authenticationService.refresh(new RefreshTokenRequest(login.getRefreshToken()));
+
+		assertThrows(InvalidTokenException.class,
+				() -> authenticationService.refresh(new RefreshTokenRequest(login.getRefreshToken())));
+		assertTrue(isRevoked(login.getToken()));
+		assertTrue(isRevoked(refreshed.getToken()));
+		assertThrows(InvalidTokenException.class,
+				() -> authenticationService.refresh(new RefreshTokenRequest(refreshed.getRefreshToken())));
+	}
+
+	@Test
+	void logoutRevokesTheFamily() {
+		AuthenticationResponse login = login();
+		AuthenticationResponse other = login();
+
+		authenticationService.logout(new RefreshTokenRequest(login.getRefreshToken()));
+
+		assertTrue(isRevoked(login.getToken()));
+		assertFalse(isRevoked(other.getToken()));
+		assertThrows(InvalidTokenException.class,
+				() -> authenticationService.refresh(new RefreshTokenRequest(login.getRefreshToken())));
+	}
+
+	private AuthenticationResponse login() {
+		return authenticationService.authenticate(AuthenticationRequest.builder().email(email).password(TestFixtures.PASSWORD).build(), "127.0.0.1");
+	}
+
+	private boolean isRevoked(String accessToken) {
+		return revocationList.isRevoked(jwtService.extractFamily(jwtService.verify(accessToken)));
+	}
+}
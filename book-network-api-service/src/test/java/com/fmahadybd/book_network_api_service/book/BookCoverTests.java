@@ -0,0 +1,162 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.exception.OperationNotPermittedException;
+import com.fmahadybd.book_network_api_service.file.FileStorageService;
+import com.fmahadybd.book_network_api_service.user.User;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * The cover is stored outside of any transaction, then only the cover column of the book is updated.
+ * Only the URL of the current cover version is cached indefinitely.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@AutoConfigureMockMvc
+@Import(TestFixtures.class)
+class BookCoverTests {
+
+	@MockBean
+	private FileStorageService fileStorageService;
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private MockMvc mockMvc;
+
+	@TempDir
+	private Path directory;
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void changesCommittedDuringTheUploadAreKept() {
+		Authentication owner = fixtures.newUser();
+		Integer bookId = fixtures.newBook(owner, "Title");
+		MockMultipartFile file = new MockMultipartFile("file", "cover.jpg", "image/jpeg", new byte[] {1, 2, 3});
+		when(fileStorageService.saveFile(any(), eq(bookId), any())).thenAnswer(invocation -> {
+			// The owner archives the book while the picture is being written
+			jdbcTemplate.update("UPDATE book SET archived = true, synopsis = 'Changed' WHERE id = ?", bookId);
+			return "covers/" + bookId + ".jpg";
+		});
+
+		bookService.uploadBookCoverPicture(file, owner, bookId);
+
+		Map<String, Object> book = jdbcTemplate.queryForMap("SELECT * FROM book WHERE id = ?", bookId);
+		assertEquals("covers/" + bookId + ".jpg", book.get("book_cover"));
+		assertEquals(Boolean.TRUE, book.get("archived"));
+		assertEquals("Changed", book.get("synopsis"));
+		assertEquals(((User) owner.getPrincipal()).getId(), book.get("last_modified_by"));
+	}
+
+	@Test
+	void onlyTheCurrentCoverVersionIsImmutable() throws Exception {
+		Authentication owner = fixtures.newUser();
+		Integer bookId = fixtures.newBook(owner, "Title");
+		setCover(bookId, "first.jpg");
+		String firstUrl = coverUrl(owner, bookId);
+		setCover(bookId, "second.jpg");
+		String currentUrl = coverUrl(owner, bookId);
+
+		assertCacheControl(owner, currentUrl, "max-age=31536000, private, immutable");
+		assertCacheControl(owner, firstUrl, "no-cache, private");
+		assertCacheControl(owner, "/books/cover/" + bookId, "no-cache, private");
+	}
+
+	private void setCover(Integer bookId, String name) throws IOException {
+		Path cover = Files.write(directory.resolve(name), new byte[] {1, 2, 3});
+		jdbcTemplate.update("UPDATE book SET book_cover = ? WHERE id = ?", cover.toString(), bookId);
+	}
+
+	private String coverUrl(Authentication user, Integer bookId) throws Exception {
+		String book = mockMvc.perform(get("/books/" + bookId).with(authentication(user)))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+		return JsonPath.read(book, "$.coverUrl");
+	}
+
+	private void assertCacheControl(Authentication user, String url, String cacheControl) throws Exception {
+		mockMvc.perform(get(url).with(authentication(user)))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag"))
+				.andExpect(header().string("Cache-Control", cacheControl));
+	}
+
+	@Test
+	void coverOfAnotherOwnerIsRefusedBeforeTheUpload() {
+		Integer bookId = fixtures.newBook(fixtures.newUser(), "Title");
+		MockMultipartFile file = new MockMultipartFile("file", "cover.jpg", "image/jpeg", new byte[] {1, 2, 3});
+		assertThrows(OperationNotPermittedException.class,
+				() -> bookService.uploadBookCoverPicture(file, fixtures.newUser(), bookId));
+		verifyNoInteractions(fileStorageService);
+		assertNull(jdbcTemplate.queryForObject("SELECT book_cover FROM book WHERE id = ?", String.class, bookId));
+	}
+
+	@Test
+	void pictureOfABookGivenAwayDuringTheUploadIsDeleted() {
+		Authentication owner = fixtures.newUser();
+		Integer bookId = fixtures.newBook(owner, "Title");
+		Integer newOwnerId = ((User) fixtures.newUser().getPrincipal()).getId();
+		MockMultipartFile file = new MockMultipartFile("file", "cover.jpg", "image/jpeg", new byte[] {1, 2, 3});
+		when(fileStorageService.saveFile(any(), eq(bookId), any())).thenAnswer(invocation -> {
+			jdbcTemplate.update("UPDATE book SET owner_id = ? WHERE id = ?", newOwnerId, bookId);
+			return "covers/" + bookId + ".jpg";
+		});
+
+		assertThrows(EntityNotFoundException.class, () -> bookService.uploadBookCoverPicture(file, owner, bookId));
+
+		verify(fileStorageService).deleteFile("covers/" + bookId + ".jpg");
+		assertNull(jdbcTemplate.queryForObject("SELECT book_cover FROM book WHERE id = ?", String.class, bookId));
+	}
+
+	@Test
+	void unknownBookIsRefusedBeforeTheUpload() {
+		Authentication owner = fixtures.newUser();
+		MockMultipartFile file = new MockMultipartFile("file", "cover.jpg", "image/jpeg", new byte[] {1, 2, 3});
+		assertThrows(EntityNotFoundException.class, () -> bookService.uploadBookCoverPicture(file, owner, -1));
+		verifyNoInteractions(fileStorageService);
+	}
+}
@@ -0,0 +1,74 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+import com.fmahadybd.book_network_api_service.user.User;
+
+/**
+ * Time to import a library of 100 000 books from a CSV file, with the default batch size. The file
+ * is generated, so the run can be repeated anywhere, and the throughput is logged. Most of the time
+ * goes to the database maintaining the indexes of the book table; the bound leaves room for slow
+ * build machines.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@Import(TestFixtures.class)
+class BookImportLoadTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BookImportLoadTests.class);
+
+	private static final int BOOKS = 100_000;
+	private static final Duration MAX_DURATION = Duration.ofSeconds(60);
+
+	@Autowired
+	private BookImportService importService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void hundredThousandBooksAreImportedWithinTheBound() {
+		Authentication owner = fixtures.newUser();
+		StringBuilder file = new StringBuilder("title,author_name,isbn,synopsis,shareable\n");
+		for (int i = 0; i < BOOKS; i++) {
+			file.append("\"Title ").append(i).append(", volume ").append(i % 7).append("\",Author ").append(i % 1000)
+					.append(',').append(9780000000000L + i).append(",A synopsis of the book,true\n");
+		}
+		byte[] content = file.toString().getBytes(UTF_8);
+
+		long start = System.nanoTime();
+		BookImportResponse response = importService.importBooks(new ByteArrayInputStream(content), DataFormat.CSV, owner);
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		log.info("Imported {} books ({} KB) in {} ms, {} books/s", response.getImported(), content.length / 1024, millis,
+				BOOKS * 1000L / Math.max(millis, 1));
+		assertEquals(BOOKS, response.getImported());
+		assertEquals(0, response.getRejected());
+		assertEquals(BOOKS, jdbcTemplate.queryForObject("SELECT count(*) FROM book WHERE owner_id = ?", Integer.class,
+				((User) owner.getPrincipal()).getId()));
+		assertTrue(millis < MAX_DURATION.toMillis(), "Imported in " + millis + " ms");
+	}
+}
@@ -0,0 +1,183 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+
+class BookImportReaderTests {
+
+	private static final String HEADER = "title,author_name,isbn,synopsis,shareable\n";
+
+	// Configured like the one of the application, which ignores unknown properties
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Test
+	void csvQuotedFieldsHoldCommasQuotesAndLineBreaks() {
+		List<BookImportRow> rows = read(DataFormat.CSV, HEADER
+				+ "\"Dune, Messiah\",\"Frank \"\"F.\"\" Herbert\",123,\"First line\r\nSecond line\",true\r\n"
+				+ "Emma,Jane Austen,456,\"\",false\n");
+
+		assertEquals(2, rows.size());
+		assertEquals(new BookImportRow(1, new BookRequest(null, "Dune, Messiah", "Frank \"F.\" Herbert", "123",
+				"First line\r\nSecond line", true), null), rows.get(0));
+		assertEquals(new BookImportRow(2, new BookRequest(null, "Emma", "Jane Austen", "456", "", false), null),
+				rows.get(1));
+	}
+
+	@Test
+	void csvColumnsAreMatchedByName() {
+		List<BookImportRow> rows = read(DataFormat.CSV, "Shareable,ISBN,Unknown,Title\ntrue,123,ignored,Dune\n");
+
+		assertEquals(new BookImportRow(1, new BookRequest(null, "Dune", null, "123", null, true), null), rows.get(0));
+	}
+
+	@Test
+	void csvRowsAreNumberedByRecordSkippingBlankLines() {
+		List<BookImportRow> rows = read(DataFormat.CSV, HEADER
+				+ "A,Author,1,\"Two\nlines\",true\n"
+				+ "\n"
+				+ "B,Author,2,Synopsis,true");
+
+		assertEquals(List.of(1L, 2L), rows.stream().map(BookImportRow::row).toList());
+		assertEquals("B", rows.get(1).request().title());
+	}
+
+	@Test
+	void csvBadQuotingIsReportedOnItsRow() {
+		List<BookImportRow> rows = read(DataFormat.CSV, HEADER
+				+ "Dune,Frank \"Herbert,123,Synopsis,true\n"
+				+ "\"Emma\" Woodhouse,Jane Austen,456,Synopsis,true\n"
+				+ "Persuasion,Jane Austen,789,Synopsis,true\n");
+
+		assertEquals(3, rows.size());
+		assertMalformed(rows.get(0), 1, "Malformed CSV: quote inside the unquoted field 2");
+		assertMalformed(rows.get(1), 2, "Malformed CSV: text after the closing quote of field 1");
+		assertEquals("Persuasion", rows.get(2).request().title());
+	}
+
+	@Test
+	void csvUnclosedQuoteIsReportedAtTheEndOfTheFile() {
+		List<BookImportRow> rows = read(DataFormat.CSV, HEADER
+				+ "Dune,Frank Herbert,123,Synopsis,true\n"
+				+ "\"Emma,Jane Austen,456,Synopsis,true\n"
+				+ "Persuasion,Jane Austen,789,Synopsis,true\n");
+
+		assertEquals(2, rows.size());
+		assertMalformed(rows.get(1), 2, "Malformed CSV: quoted field 1 is not closed before the end of the file");
+	}
+
+	@Test
+	void csvStrayQuoteStopsAtTheFieldLimitAndResumesAtTheNextLine() {
+		StringBuilder file = new StringBuilder(HEADER).append("\"Dune,Frank Herbert,123,Synopsis,true\n");
+		for (int i = 0; i < 100; i++) {
+			file.append("Book ").append(i).append(",Author,").append(i).append(",Synopsis,true\n");
+		}
+
+		List<BookImportRow> rows = read(DataFormat.CSV, file.toString());
+
+		assertMalformed(rows.get(0), 1, "Malformed CSV: field 1 longer than " + BookImportReader.MAX_FIELD_LENGTH
+				+ " characters");
+		// The lines swallowed by the quoted field up to the limit are part of the malformed record
+		assertEquals(2, rows.get(1).row());
+		assertNull(rows.get(1).error());
+		assertTrue(rows.get(1).request().title().startsWith("Book "), rows.get(1).request().title());
+		assertEquals("Book 99", rows.get(rows.size() - 1).request().title());
+	}
+
+	@Test
+	void csvRecordOverTheLimitIsSkippedToTheNextLine() {
+		String longField = "x".repeat(BookImportReader.MAX_FIELD_LENGTH);
+		String longRecord = String.join(",", Collections.nCopies(20, longField));
+		List<BookImportRow> rows = read(DataFormat.CSV, HEADER
+				+ "Dune,Frank Herbert,123," + longField + ",true\n"
+				+ longRecord + "\n"
+				+ "Emma,Jane Austen,456,Synopsis,false\n");
+
+		assertEquals(3, rows.size());
+		assertEquals(longField, rows.get(0).request().synopsis());
+		assertMalformed(rows.get(1), 2, "Malformed CSV: record longer than " + BookImportReader.MAX_ROW_LENGTH
+				+ " characters");
+		assertEquals("Emma", rows.get(2).request().title());
+	}
+
+	@Test
+	void ndjsonLineOverTheLimitIsReportedOnItsLine() {
+		List<BookImportRow> rows = read(DataFormat.NDJSON, "{\"title\":\"" + "x".repeat(BookImportReader.MAX_ROW_LENGTH)
+				+ "\"}\n{\"title\":\"Emma\"}\n");
+
+		assertEquals(2, rows.size());
+		assertMalformed(rows.get(0), 1, "Malformed JSON: line longer than " + BookImportReader.MAX_ROW_LENGTH
+				+ " characters");
+		assertEquals("Emma", rows.get(1).request().title());
+	}
+
+	@Test
+	void ndjsonRowsAreNumberedByLine() {
+		List<BookImportRow> rows = read(DataFormat.NDJSON, """
+				{"title":"Dune","authorName":"Frank Herbert","isbn":"123","synopsis":"Desert","shareable":true}
+
+				{"title":"Emma","unknown":1}
+				""");
+
+		assertEquals(2, rows.size());
+		assertEquals(new BookImportRow(1, new BookRequest(null, "Dune", "Frank Herbert", "123", "Desert", true), null),
+				rows.get(0));
+		assertEquals(new BookImportRow(3, new BookRequest(null, "Emma", null, null, null, false), null), rows.get(1));
+	}
+
+	@Test
+	void ndjsonErrorsAreReportedOnTheirLine() {
+		List<BookImportRow> rows = read(DataFormat.NDJSON, """
+				{"title":"Dune"
+				null
+				["Emma"]
+				{"title":"Persuasion"}
+				""");
+
+		assertEquals(4, rows.size());
+		assertTrue(rows.get(0).error().startsWith("Malformed JSON: "), rows.get(0).error());
+		assertMalformed(rows.get(1), 2, "Malformed JSON: expected an object, found null");
+		assertTrue(rows.get(2).error().startsWith("Malformed JSON: "), rows.get(2).error());
+		assertEquals(3, rows.get(2).row());
+		assertEquals("Persuasion", rows.get(3).request().title());
+	}
+
+	@Test
+	void endOfFileEndsTheIteration() {
+		BookImportReader reader = reader(DataFormat.CSV, HEADER);
+
+		assertFalse(reader.hasNext());
+		assertThrows(NoSuchElementException.class, reader::next);
+	}
+
+	private static void assertMalformed(BookImportRow row, long number, String error) {
+		assertEquals(number, row.row());
+		assertNull(row.request());
+		assertEquals(error, row.error());
+	}
+
+	private List<BookImportRow> read(DataFormat format, String content) {
+		List<BookImportRow> rows = new ArrayList<>();
+		reader(format, content).forEachRemaining(rows::add);
+		return rows;
+	}
+
+	private BookImportReader reader(DataFormat format, String content) {
+		return BookImportReader.of(format, new BufferedReader(new StringReader(content)), objectMapper);
+	}
+}
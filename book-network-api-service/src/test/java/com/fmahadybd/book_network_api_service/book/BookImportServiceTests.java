@@ -0,0 +1,120 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.common.DataFormat;
+import com.fmahadybd.book_network_api_service.user.User;
+
+/**
+ * Rejected rows are reported by their number in the file, and only the batches that fail to be
+ * saved are lost. Batches of 2 rows keep the files short.
+ */
+@SpringBootTest(properties = {
+		"application.book-import.batch-size=2",
+		"application.book-import.max-reported-errors=3",
+		"application.scheduling.enabled=false"
+})
+@Import(TestFixtures.class)
+class BookImportServiceTests {
+
+	private static final String HEADER = "title,author_name,isbn,synopsis,shareable\n";
+
+	@Autowired
+	private BookImportService importService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Authentication owner;
+
+	@BeforeEach
+	void setUp() {
+		owner = fixtures.newUser();
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void failedBatchIsRejectedAndTheOthersAreImported() {
+		BookImportResponse response = importCsv(HEADER
+				+ "Book 1,Author,1,Synopsis,true\n"
+				+ "Book 2,,2,Synopsis,true\n"
+				+ "Book 3,Author,3,Synopsis,true\n"
+				// Valid, but longer than the column: its batch, with book 4, fails to be inserted
+				+ "Book 3b,Author," + "9".repeat(300) + ",Synopsis,true\n"
+				+ "Book 4,Author,4,Synopsis,true\n"
+				+ "\"Book 5,Author,5,Synopsis,true\n");
+
+		assertEquals(2, response.getImported());
+		assertEquals(4, response.getRejected());
+		List<BookImportError> errors = response.getErrors();
+		assertEquals(List.of(2L, 4L, 5L), errors.stream().map(BookImportError::getRow).toList());
+		assertEquals(Set.of("101"), errors.get(0).getValidationErrors());
+		assertTrue(errors.get(1).getError().startsWith("The batch of this row could not be saved: "), errors.get(1).getError());
+		assertEquals(errors.get(1).getError(), errors.get(2).getError());
+		assertEquals(List.of("Book 1", "Book 3"), ownedTitles());
+	}
+
+	@Test
+	void ndjsonRowsAreReportedByLine() {
+		BookImportResponse response = importService.importBooks(content("""
+				{"title":"Book 1","authorName":"Author","isbn":"1","synopsis":"Synopsis","shareable":true}
+
+				{"title":"Book 2"
+				{"title":"Book 3","authorName":"Author","isbn":"3","synopsis":"Synopsis","shareable":true}
+				"""), DataFormat.NDJSON, owner);
+
+		assertEquals(2, response.getImported());
+		assertEquals(1, response.getRejected());
+		assertEquals(3L, response.getErrors().get(0).getRow());
+		assertEquals(List.of("Book 1", "Book 3"), ownedTitles());
+	}
+
+	@Test
+	void reportedErrorsAreCappedButAllRejectedRowsAreCounted() {
+		StringBuilder file = new StringBuilder(HEADER);
+		for (int i = 1; i <= 5; i++) {
+			file.append("Book ").append(i).append(",,").append(i).append(",Synopsis,true\n");
+		}
+		file.append("Book 6,Author,6,Synopsis,true\n");
+
+		BookImportResponse response = importCsv(file.toString());
+
+		assertEquals(1, response.getImported());
+		assertEquals(5, response.getRejected());
+		assertEquals(List.of(1L, 2L, 3L), response.getErrors().stream().map(BookImportError::getRow).toList());
+	}
+
+	private BookImportResponse importCsv(String file) {
+		return importService.importBooks(content(file), DataFormat.CSV, owner);
+	}
+
+	private static ByteArrayInputStream content(String file) {
+		return new ByteArrayInputStream(file.getBytes(UTF_8));
+	}
+
+	private List<String> ownedTitles() {
+		return jdbcTemplate.queryForList("SELECT title FROM book WHERE owner_id = ? ORDER BY title", String.class,
+				((User) owner.getPrincipal()).getId());
+	}
+}
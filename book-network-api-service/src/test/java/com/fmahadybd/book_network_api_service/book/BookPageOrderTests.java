@@ -0,0 +1,93 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
+
+/**
+ * Books imported together share their creation date: the pages read from the database break the
+ * ties by id, like the cursor pages and the catalog snapshot, so that no book is repeated or skipped
+ * from a page to the next. The snapshot is disabled to read the pages from the database.
+ */
+@SpringBootTest(properties = {
+		"application.catalog.snapshot-size=0",
+		"application.scheduling.enabled=false"
+})
+@Import(TestFixtures.class)
+class BookPageOrderTests {
+
+	private static final int BOOKS = 25;
+	private static final int PAGE_SIZE = 4;
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Authentication owner;
+	private List<Integer> bookIds;
+
+	@BeforeEach
+	void setUp() {
+		owner = fixtures.newUser();
+		bookIds = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++) {
+			bookIds.add(fixtures.newBook(owner, "Imported " + i));
+		}
+		jdbcTemplate.update("UPDATE book SET created_date = ? WHERE id IN (SELECT unnest(?::integer[]))",
+				LocalDateTime.of(2030, 1, 1, 0, 0), bookIds.toArray(Integer[]::new));
+		bookIds.sort(Comparator.reverseOrder());
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void booksOfTheOwnerWithTheSameDateArePagedById() {
+		assertEquals(bookIds, readAllPages(page -> bookService.findAllBooksByOwner(page, PAGE_SIZE, TotalMode.NONE, owner)));
+	}
+
+	@Test
+	void catalogBooksWithTheSameDateArePagedById() {
+		Authentication reader = fixtures.newUser();
+		List<Integer> catalog = readAllPages(page -> bookService.findAllBooks(page, PAGE_SIZE, TotalMode.NONE, false, reader));
+		catalog.retainAll(bookIds);
+		assertEquals(bookIds, catalog);
+	}
+
+	private static List<Integer> readAllPages(PageReader reader) {
+		List<Integer> ids = new ArrayList<>();
+		PageResponse<BookResponse> page;
+		int number = 0;
+		do {
+			page = reader.read(number++);
+			page.getContent().forEach(book -> ids.add(book.getId()));
+		} while (!page.isLast());
+		return ids;
+	}
+
+	@FunctionalInterface
+	private interface PageReader {
+		PageResponse<BookResponse> read(int page);
+	}
+}
@@ -0,0 +1,157 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.feedback.FeedbackRequest;
+import com.fmahadybd.book_network_api_service.feedback.FeedbackService;
+
+/**
+ * The rating counters are only changed by the atomic increments of the feedbacks, never written back
+ * by a save of the book.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@Import(TestFixtures.class)
+class BookRatingTests {
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private FeedbackService feedbackService;
+	@SpyBean
+	private BookRepository bookRepository;
+	@Autowired
+	private BookRatingReconciler reconciler;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Authentication owner;
+	private Authentication reader;
+	private Integer bookId;
+
+	@BeforeEach
+	void setUp() {
+		owner = fixtures.newUser();
+		reader = fixtures.newUser();
+		bookId = fixtures.newBook(owner, "Title");
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void feedbackWrittenDuringAnOwnerUpdateIsKept() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			SecurityContextHolder.getContext().setAuthentication(owner);
+			// The owner update reads the book before the feedback commits, and saves it after
+			assertEquals(0, bookRepository.findById(bookId).orElseThrow().getRating().getCount());
+			CompletableFuture.runAsync(() -> giveFeedback(4.5)).orTimeout(1, TimeUnit.MINUTES).join();
+			bookService.updateArchivedStatus(bookId, owner);
+		});
+
+		BookRating rating = bookRepository.findRatingById(bookId).orElseThrow();
+		assertEquals(1, rating.getCount());
+		assertEquals(4.5, rating.getSum());
+		assertEquals(List.of(0L, 0L, 0L, 0L, 1L, 0L), rating.getDistribution());
+		assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT archived FROM book WHERE id = ?", Boolean.class, bookId));
+	}
+
+	@Test
+	void reconciliationRepairsDriftedCounters() {
+		giveFeedback(3.0);
+		giveFeedback(5.0);
+		jdbcTemplate.update("UPDATE book SET rating_count = 7, rating_stars1 = 7 WHERE id = ?", bookId);
+
+		reconciler.reconcile();
+
+		BookRating rating = bookRepository.findRatingById(bookId).orElseThrow();
+		assertEquals(2, rating.getCount());
+		assertEquals(8.0, rating.getSum());
+		assertEquals(List.of(0L, 0L, 0L, 1L, 0L, 1L), rating.getDistribution());
+	}
+
+	@Test
+	void feedbackSavedDuringTheReconciliationIsCounted() {
+		giveFeedback(3.0);
+		AtomicReference<CompletableFuture<Void>> feedback = new AtomicReference<>();
+		doAnswer(invocation -> {
+			Object lockedIds = mockingDetails(bookRepository).getMockCreationSettings().getDefaultAnswer().answer(invocation);
+			// Saved while the batch holds the locks: it waits for the batch to commit, then increments
+			if (feedback.compareAndSet(null, CompletableFuture.runAsync(() -> giveFeedback(5.0)))) {
+				awaitLockWait();
+			}
+			return lockedIds;
+		}).when(bookRepository).lockBooksForReconciliation(anyLong(), anyInt());
+
+		reconciler.reconcile();
+		feedback.get().orTimeout(1, TimeUnit.MINUTES).join();
+
+		BookRating rating = bookRepository.findRatingById(bookId).orElseThrow();
+		assertEquals(2, rating.getCount());
+		assertEquals(8.0, rating.getSum());
+		assertEquals(List.of(0L, 0L, 0L, 1L, 0L, 1L), rating.getDistribution());
+	}
+
+	@Test
+	void reconciliationOnlyWritesDriftedBooks() {
+		giveFeedback(4.0);
+		String version = rowVersion();
+
+		reconciler.reconcile();
+
+		assertEquals(version, rowVersion());
+	}
+
+	private String rowVersion() {
+		return jdbcTemplate.queryForObject("SELECT xmin::text FROM book WHERE id = ?", String.class, bookId);
+	}
+
+	private void awaitLockWait() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND datname = current_database()",
+				Integer.class) == 0) {
+			assertTrue(System.nanoTime() < deadline, "The feedback never waited for the locked book");
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+	}
+
+	private void giveFeedback(double note) {
+		SecurityContextHolder.getContext().setAuthentication(reader);
+		try {
+			feedbackService.save(new FeedbackRequest(note, "Comment", bookId), reader);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.common.PageResponse;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
+
+/**
+ * The search reads the matching ids, then their summaries, so books can disappear in between.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@Import(TestFixtures.class)
+class BookSearchTests {
+
+	@SpyBean
+	private BookRepository bookRepository;
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void bookDeletedAfterTheSearchIsLeftOut() {
+		Authentication owner = fixtures.newUser();
+		Integer kept = fixtures.newBook(owner, "Stale index kept");
+		Integer deleted = fixtures.newBook(owner, "Stale index deleted");
+		doAnswer(invocation -> {
+			// Deleted by another transaction, committed between the two queries of the search
+			CompletableFuture.runAsync(() -> jdbcTemplate.update("DELETE FROM book WHERE id = ?", deleted))
+					.orTimeout(1, TimeUnit.MINUTES)
+					.join();
+			// The repository is an interface proxy, which the spy reaches through its default answer
+			return mockingDetails(bookRepository).getMockCreationSettings().getDefaultAnswer().answer(invocation);
+		}).when(bookRepository).findAllSummariesByIdIn(any());
+
+		PageResponse<BookResponse> page = bookService.searchBooks("stale index", 0, 10, TotalMode.NONE, fixtures.newUser());
+
+		assertEquals(List.of(kept), page.getContent().stream().map(BookResponse::getId).toList());
+	}
+}
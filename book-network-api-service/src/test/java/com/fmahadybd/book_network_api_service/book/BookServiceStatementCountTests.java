@@ -0,0 +1,115 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.common.TotalMode;
+import com.fmahadybd.book_network_api_service.feedback.FeedbackRequest;
+import com.fmahadybd.book_network_api_service.feedback.FeedbackService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The list endpoints must run the same number of statements whatever the page size.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@Import(TestFixtures.class)
+class BookServiceStatementCountTests {
+
+	private static final int BOOKS = 12;
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private FeedbackService feedbackService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private CatalogSnapshot catalogSnapshot;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Authentication owner;
+	private Authentication reader;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		owner = fixtures.newUser();
+		reader = fixtures.newUser();
+		for (int i = 0; i < BOOKS; i++) {
+			Integer bookId = fixtures.newBook(owner, "Title " + i);
+			login(reader);
+			feedbackService.save(new FeedbackRequest(4.0, "Nice", bookId), reader);
+			bookService.borrowBook(bookId, reader);
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		statistics.setStatisticsEnabled(false);
+		SecurityContextHolder.clearContext();
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void findAllBooksRunsAConstantNumberOfStatements() {
+		// Counts the statements run when the shared catalog snapshot has to be read again
+		assertConstantStatementCount(size -> () -> {
+			catalogSnapshot.invalidate();
+			return bookService.findAllBooks(0, size, TotalMode.EXACT, false, reader).getContent();
+		});
+	}
+
+	@Test
+	void findAllBooksByOwnerRunsAConstantNumberOfStatements() {
+		assertConstantStatementCount(size -> () -> bookService.findAllBooksByOwner(0, size, TotalMode.EXACT, owner).getContent());
+	}
+
+	@Test
+	void findAllBorrowedBooksRunsAConstantNumberOfStatements() {
+		assertConstantStatementCount(size -> () -> bookService.findAllBorrowedBooks(0, size, TotalMode.EXACT, reader).getContent());
+	}
+
+	@Test
+	void findAllReturnedBooksRunsAConstantNumberOfStatements() {
+		assertConstantStatementCount(size -> () -> bookService.findAllReturnedBooks(0, size, TotalMode.EXACT, owner).getContent());
+	}
+
+	private void assertConstantStatementCount(IntFunction<Supplier<List<?>>> listing) {
+		long small = countStatements(listing.apply(3));
+		long large = countStatements(listing.apply(BOOKS / 2));
+		assertEquals(small, large, "Statement count must not depend on the page size");
+		assertTrue(large <= 2, "Expected the page query and its count query only, got " + large);
+	}
+
+	private long countStatements(Supplier<List<?>> listing) {
+		statistics.clear();
+		List<?> content = listing.get();
+		assertTrue(content.size() > 1);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private Authentication login(Authentication authentication) {
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		return authentication;
+	}
+}
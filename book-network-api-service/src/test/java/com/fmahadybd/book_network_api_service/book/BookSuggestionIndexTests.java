@@ -0,0 +1,61 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The estimated size is maintained on every change, and always matches the size of an index built
+ * from scratch with the same books.
+ */
+class BookSuggestionIndexTests {
+
+	private static final BookSuggestion DUNE = new BookSuggestion(1, "Dune", "Frank Herbert", 10);
+	private static final BookSuggestion EMMA = new BookSuggestion(2, "Emma", "Jane Austen", 10);
+	private static final BookSuggestion PERSUASION = new BookSuggestion(2, "Persuasion", "Jane Austen", 10);
+
+	private final BookRepository bookRepository = mock(BookRepository.class);
+
+	@Test
+	void sizeFollowsAddedAndRemovedBooks() {
+		BookSuggestionIndex index = index(DUNE, EMMA);
+		long loaded = index.estimatedSize();
+		assertTrue(loaded > 0);
+
+		refresh(index, List.of(2));
+		assertEquals(index(DUNE).estimatedSize(), index.estimatedSize());
+
+		refresh(index, List.of(1));
+		assertEquals(0, index.estimatedSize());
+
+		refresh(index, List.of(1, 2), DUNE, EMMA);
+		assertEquals(loaded, index.estimatedSize());
+	}
+
+	@Test
+	void sizeFollowsChangedBooks() {
+		BookSuggestionIndex index = index(DUNE, EMMA);
+
+		refresh(index, List.of(2), PERSUASION);
+
+		assertEquals(index(DUNE, PERSUASION).estimatedSize(), index.estimatedSize());
+		assertEquals(List.of(PERSUASION), index.suggest("austen pers", 10, null));
+	}
+
+	private BookSuggestionIndex index(BookSuggestion... suggestions) {
+		when(bookRepository.findAllDisplayableSuggestions()).thenReturn(List.of(suggestions));
+		BookSuggestionIndex index = new BookSuggestionIndex(bookRepository);
+		index.load();
+		return index;
+	}
+
+	private void refresh(BookSuggestionIndex index, List<Integer> bookIds, BookSuggestion... suggestions) {
+		when(bookRepository.findDisplayableSuggestionsByIdIn(bookIds)).thenReturn(List.of(suggestions));
+		index.refresh(bookIds);
+	}
+}
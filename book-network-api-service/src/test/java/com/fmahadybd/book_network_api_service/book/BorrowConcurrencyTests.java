@@ -0,0 +1,141 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.exception.OperationNotPermittedException;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Many users borrowing the same book at the same moment: exactly one of them gets it.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@Import(TestFixtures.class)
+class BorrowConcurrencyTests {
+
+	private static final int BORROWERS = 32;
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Authentication owner;
+	private Integer bookId;
+	private final List<Authentication> borrowers = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		owner = fixtures.newUser();
+		bookId = fixtures.newBook(owner, "Title");
+		for (int i = 0; i < BORROWERS; i++) {
+			borrowers.add(fixtures.newUser());
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void concurrentBorrowsHaveExactlyOneWinner() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+		CountDownLatch start = new CountDownLatch(1);
+		int winners = 0;
+		int refused = 0;
+		try {
+			List<Future<Integer>> borrows = new ArrayList<>();
+			for (Authentication borrower : borrowers) {
+				borrows.add(executor.submit(() -> {
+					start.await();
+					return bookService.borrowBook(bookId, borrower);
+				}));
+			}
+			start.countDown();
+			for (Future<Integer> borrow : borrows) {
+				try {
+					borrow.get(1, TimeUnit.MINUTES);
+					winners++;
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof OperationNotPermittedException, e.getCause()::toString);
+					refused++;
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, winners);
+		assertEquals(BORROWERS - 1, refused);
+		assertEquals(1, jdbcTemplate.queryForObject("""
+				SELECT count(*) FROM book_transaction_history WHERE book_id = ? AND return_approved = false
+				""", Integer.class, bookId));
+		assertFalse(bookService.findById(bookId).isAvailable());
+	}
+
+	@Test
+	void borrowIsASingleStatement() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		try {
+			statistics.clear();
+			bookService.borrowBook(bookId, borrowers.get(0));
+			// The id sequence is only called once every 50 ids
+			assertTrue(statistics.getPrepareStatementCount() <= 2,
+					() -> statistics.getPrepareStatementCount() + " statements");
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+		OperationNotPermittedException refusal = assertThrows(OperationNotPermittedException.class,
+				() -> bookService.borrowBook(bookId, borrowers.get(1)));
+		assertEquals("Te requested book is already borrowed", refusal.getMessage());
+	}
+
+	@Test
+	void approvedReturnMakesTheBookAvailableAgain() {
+		Authentication borrower = borrowers.get(0);
+		bookService.borrowBook(bookId, borrower);
+		SecurityContextHolder.getContext().setAuthentication(borrower);
+		bookService.returnBorrowedBook(bookId, borrower);
+		SecurityContextHolder.getContext().setAuthentication(owner);
+
+		bookService.approveReturnBorrowedBook(bookId, owner);
+
+		assertTrue(bookService.findById(bookId).isAvailable());
+		assertEquals(0, jdbcTemplate.queryForObject("""
+				SELECT count(*) FROM book_transaction_history WHERE book_id = ? AND return_approved = false
+				""", Integer.class, bookId));
+		bookService.borrowBook(bookId, borrowers.get(1));
+		assertFalse(bookService.findById(bookId).isAvailable());
+	}
+}
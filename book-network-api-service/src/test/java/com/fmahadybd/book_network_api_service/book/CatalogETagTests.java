@@ -0,0 +1,106 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The entity tag of the catalog comes from the version of the catalog snapshot, so revalidating a
+ * page runs no query.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@AutoConfigureMockMvc
+@Import(TestFixtures.class)
+class CatalogETagTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Authentication owner;
+	private Authentication reader;
+	private Integer bookId;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		owner = fixtures.newUser();
+		reader = fixtures.newUser();
+		bookId = fixtures.newBook(owner, "Title");
+	}
+
+	@AfterEach
+	void tearDown() {
+		statistics.setStatisticsEnabled(false);
+		SecurityContextHolder.clearContext();
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void notModifiedCatalogRunsNoQuery() throws Exception {
+		String eTag = findAllBooks(null, 200);
+
+		statistics.clear();
+		findAllBooks(eTag, 304);
+		findAllBooks(eTag, 304);
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void bookChangeGivesANewETag() throws Exception {
+		String eTag = findAllBooks(null, 200);
+
+		SecurityContextHolder.getContext().setAuthentication(owner);
+		bookService.updateArchivedStatus(bookId, owner);
+
+		assertNotEquals(eTag, findAllBooks(eTag, 200));
+	}
+
+	@Test
+	void eTagIsScopedToTheUser() throws Exception {
+		String eTag = findAllBooks(null, 200);
+
+		mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, eTag).with(authentication(owner)))
+				.andExpect(status().isOk());
+	}
+
+	private String findAllBooks(String eTag, int expectedStatus) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		if (eTag != null) {
+			headers.setIfNoneMatch(eTag);
+		}
+		return mockMvc.perform(get("/books").headers(headers).with(authentication(reader)))
+				.andExpect(status().is(expectedStatus))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+	}
+}
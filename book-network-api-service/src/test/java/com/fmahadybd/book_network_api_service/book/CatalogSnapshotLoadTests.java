@@ -0,0 +1,163 @@
+package com.fmahadybd.book_network_api_service.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.user.User;
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Database load of 1000 browsers opening the first catalog page at the same time, with and without
+ * the shared catalog snapshot, then revalidating it. The snapshot is sized to hold the whole test
+ * catalog.
+ */
+@SpringBootTest(properties = {
+		"application.catalog.snapshot-size=100000",
+		"application.scheduling.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(TestFixtures.class)
+class CatalogSnapshotLoadTests {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotLoadTests.class);
+
+	private static final int BROWSERS = 1000;
+	private static final int THREADS = 64;
+	private static final int USERS = 20;
+	private static final int PAGE_SIZE = 10;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private CatalogSnapshot catalogSnapshot;
+	@Autowired
+	private TestFixtures fixtures;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private final List<Authentication> users = new ArrayList<>();
+	private final Map<Authentication, String> eTags = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		for (int i = 0; i < USERS; i++) {
+			Authentication user = fixtures.newUser();
+			users.add(user);
+			for (int j = 0; j < 3; j++) {
+				fixtures.newBook(user, "Title " + i + "-" + j);
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		statistics.setStatisticsEnabled(false);
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void sharedSnapshotServesConcurrentBrowsersWithASingleQuery() throws Exception {
+		long direct = countStatements(user -> {
+			Integer userId = ((User) user.getPrincipal()).getId();
+			bookRepository.findAllDisplayableBooks(PageRequest.of(0, PAGE_SIZE, Sort.by("createdDate").descending()), userId);
+			bookRepository.countDisplayableBooks(userId);
+		});
+		catalogSnapshot.invalidate();
+		long shared = countStatements(user -> {
+			MockHttpServletResponse response = findAllBooks(user, null, HttpStatus.OK);
+			assertEquals(PAGE_SIZE, JsonPath.<Integer>read(response.getContentAsString(), "$.content.length()"));
+			eTags.put(user, response.getHeader(HttpHeaders.ETAG));
+		});
+		long revalidated = countStatements(user -> findAllBooks(user, eTags.get(user), HttpStatus.NOT_MODIFIED));
+		log.info("{} browsers: {} statements with a query per browser, {} with the shared snapshot, {} to revalidate",
+				BROWSERS, direct, shared, revalidated);
+		assertEquals(2L * BROWSERS, direct);
+		assertEquals(1, shared, "The snapshot must be read once for all browsers");
+		assertEquals(0, revalidated, "Revalidating a page must not query the database");
+	}
+
+	private MockHttpServletResponse findAllBooks(Authentication user, String eTag, HttpStatus expectedStatus) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		if (eTag != null) {
+			headers.setIfNoneMatch(eTag);
+		}
+		return mockMvc.perform(get("/books").param("size", String.valueOf(PAGE_SIZE)).headers(headers)
+						.with(authentication(user)))
+				.andExpect(status().is(expectedStatus.value()))
+				.andReturn()
+				.getResponse();
+	}
+
+	private long countStatements(Browser browser) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		statistics.clear();
+		long startTime = System.nanoTime();
+		try {
+			List<Future<?>> requests = new ArrayList<>();
+			for (int i = 0; i < BROWSERS; i++) {
+				Authentication user = users.get(i % USERS);
+				requests.add(executor.submit(() -> {
+					start.await();
+					browser.browse(user);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> request : requests) {
+				request.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		log.info("{} browsers served in {} ms", BROWSERS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		return statistics.getPrepareStatementCount();
+	}
+
+	@FunctionalInterface
+	private interface Browser {
+
+		void browse(Authentication user) throws Exception;
+	}
+}
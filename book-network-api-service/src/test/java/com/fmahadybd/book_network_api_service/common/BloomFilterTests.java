@@ -0,0 +1,43 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	private static final int KEYS = 10_000;
+
+	@Test
+	void putKeysAreAlwaysFound() {
+		BloomFilter filter = new BloomFilter(KEYS, 0.01);
+		List<UUID> keys = new ArrayList<>();
+		for (int i = 0; i < KEYS; i++) {
+			UUID key = UUID.randomUUID();
+			keys.add(key);
+			filter.put(key);
+		}
+		keys.forEach(key -> assertTrue(filter.mightContain(key)));
+	}
+
+	@Test
+	void falsePositiveRateIsAboutTheConfiguredOne() {
+		BloomFilter filter = new BloomFilter(KEYS, 0.01);
+		for (int i = 0; i < KEYS; i++) {
+			filter.put(UUID.randomUUID());
+		}
+		int falsePositives = 0;
+		int probes = 100_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(UUID.randomUUID())) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < probes * 0.02, falsePositives + " false positives");
+		assertTrue(filter.byteSize() < 16 * 1024, filter.byteSize() + " bytes");
+	}
+}
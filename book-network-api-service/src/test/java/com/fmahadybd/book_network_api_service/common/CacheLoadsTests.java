@@ -0,0 +1,84 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class CacheLoadsTests {
+
+	private final AsyncCache<String, String> cache = Caffeine.newBuilder().buildAsync();
+
+	@Test
+	void concurrentCallersWaitForASingleLoad() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> values = new ArrayList<>();
+			values.add(executor.submit(() -> CacheLoads.getOrLoad(cache, "key", () -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "value";
+			})));
+			loading.await();
+			for (int i = 0; i < 7; i++) {
+				values.add(executor.submit(() -> CacheLoads.getOrLoad(cache, "key", () -> {
+					loads.incrementAndGet();
+					return "other";
+				})));
+			}
+			release.countDown();
+			for (Future<String> value : values) {
+				assertEquals("value", value.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loaderRunsOnTheCallerThread() {
+		Thread caller = Thread.currentThread();
+		CacheLoads.getOrLoad(cache, "key", () -> {
+			assertSame(caller, Thread.currentThread());
+			return "value";
+		});
+	}
+
+	@Test
+	void failedLoadIsNotCached() {
+		IllegalStateException failure = new IllegalStateException("database down");
+		assertSame(failure, assertThrows(IllegalStateException.class,
+				() -> CacheLoads.getOrLoad(cache, "key", () -> {
+					throw failure;
+				})));
+		assertEquals("value", CacheLoads.getOrLoad(cache, "key", () -> "value"));
+		assertTrue(cache.synchronous().asMap().containsKey("key"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+
+/**
+ * Pages of no rows, or before the first one, are refused as bad requests instead of failing while the
+ * page is built.
+ */
+@SpringBootTest(properties = "application.scheduling.enabled=false")
+@AutoConfigureMockMvc
+@Import(TestFixtures.class)
+class PageParameterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private TestFixtures fixtures;
+
+	private Authentication reader;
+	private Integer bookId;
+
+	@BeforeEach
+	void setUp() {
+		reader = fixtures.newUser();
+		bookId = fixtures.newBook(fixtures.newUser(), "Title");
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void offsetPageOfSizeZeroIsABadRequest() throws Exception {
+		mockMvc.perform(get("/books").param("size", "0").with(authentication(reader)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.validationErrors", hasItem("size must be greater than or equal to 1")));
+	}
+
+	@Test
+	void cursorPageOfSizeZeroIsABadRequest() throws Exception {
+		mockMvc.perform(get("/books").param("size", "0").param("cursor", "").with(authentication(reader)))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/feedbacks/book/" + bookId).param("size", "0").param("cursor", "").with(authentication(reader)))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void negativePageIsABadRequest() throws Exception {
+		mockMvc.perform(get("/books/search").param("query", "title").param("page", "-1").with(authentication(reader)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.validationErrors", hasItem("page must be greater than or equal to 0")));
+	}
+
+	@Test
+	void pageOfOneRowIsServed() throws Exception {
+		mockMvc.perform(get("/books").param("size", "1").param("cursor", "").with(authentication(reader)))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,37 @@
+package com.fmahadybd.book_network_api_service.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTests {
+
+	private final AtomicLong now = new AtomicLong();
+	private final TokenBuckets buckets = new TokenBuckets(3, Duration.ofSeconds(30), 1_000, now::get);
+
+	@Test
+	void burstIsLimitedToTheCapacity() {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(buckets.tryAcquire("reader@mail.com").isZero());
+		}
+		assertEquals(Duration.ofSeconds(10), buckets.tryAcquire("reader@mail.com"));
+		assertTrue(buckets.tryAcquire("other@mail.com").isZero());
+	}
+
+	@Test
+	void tokensAreRefilledOverTime() {
+		for (int i = 0; i < 3; i++) {
+			buckets.tryAcquire("reader@mail.com");
+		}
+		now.addAndGet(Duration.ofSeconds(4).toNanos());
+		assertEquals(Duration.ofSeconds(6), buckets.tryAcquire("reader@mail.com"));
+		now.addAndGet(Duration.ofSeconds(6).toNanos());
+		assertTrue(buckets.tryAcquire("reader@mail.com").isZero());
+		assertFalse(buckets.tryAcquire("reader@mail.com").isZero());
+	}
+}
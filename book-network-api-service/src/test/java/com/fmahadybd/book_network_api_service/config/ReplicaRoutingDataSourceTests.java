@@ -0,0 +1,99 @@
+package com.fmahadybd.book_network_api_service.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routing of the connections between a primary and a replica, with stub pools whose connections
+ * tell which pool they come from.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private DataSource dataSource;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		dataSource = new LazyConnectionDataSourceProxy(
+				new ReplicaRoutingDataSource(pool("primary"), pool("replica"), Duration.ofMinutes(1)));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		login("reader@mail.com");
+		assertEquals("replica", readOnly.execute(status -> pool()));
+		assertEquals("primary", readWrite.execute(status -> pool()));
+	}
+
+	@Test
+	void writerReadsItsOwnWritesFromThePrimary() {
+		login("writer@mail.com");
+		readWrite.executeWithoutResult(status -> pool());
+		assertEquals("primary", readOnly.execute(status -> pool()));
+
+		login("reader@mail.com");
+		assertEquals("replica", readOnly.execute(status -> pool()));
+	}
+
+	@Test
+	void rolledBackWritesDoNotPinTheWriter() {
+		login("writer@mail.com");
+		readWrite.executeWithoutResult(status -> {
+			pool();
+			status.setRollbackOnly();
+		});
+		assertEquals("replica", readOnly.execute(status -> pool()));
+	}
+
+	private String pool() {
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		try {
+			return connection.getCatalog();
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void login(String email) {
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+	}
+
+	private static DataSource pool(String name) throws SQLException {
+		Connection connection = mock(Connection.class);
+		when(connection.getCatalog()).thenReturn(name);
+		when(connection.getAutoCommit()).thenReturn(true);
+		when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		DataSource pool = mock(DataSource.class);
+		when(pool.getConnection()).thenReturn(connection);
+		return pool;
+	}
+}
@@ -0,0 +1,133 @@
+package com.fmahadybd.book_network_api_service.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fmahadybd.book_network_api_service.BookNetworkApiServiceApplication;
+import com.fmahadybd.book_network_api_service.book.BookRequest;
+import com.fmahadybd.book_network_api_service.book.BookService;
+import com.fmahadybd.book_network_api_service.role.RoleRepository;
+import com.fmahadybd.book_network_api_service.security.JwtService;
+import com.fmahadybd.book_network_api_service.user.User;
+import com.fmahadybd.book_network_api_service.user.UserRepository;
+
+/**
+ * Requests of 1000 concurrent clients to {@code GET /books/{book-id}}, served by the application
+ * over HTTP: on Tomcat's pool of 200 platform threads, and on a virtual thread per request as with
+ * {@code spring.threads.virtual.enabled}. Each request runs the JWT filter and two queries, the
+ * entity tag then the book, so it blocks on the database like most of the API. The throughput mode
+ * gives the requests per second and the sample time mode the latency percentiles, p99 included.
+ * <p>
+ * The application runs with the {@code dev} profile and its database. The virtual mode needs a
+ * Java 21 JVM: on Java 17 the property is ignored and both modes run on platform threads. Run with
+ * {@code java -cp <test classpath> com.fmahadybd.book_network_api_service.config.RequestThreadsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1000)
+@Fork(1)
+public class RequestThreadsBenchmark {
+
+	@Param({"platform", "virtual"})
+	public String threads;
+
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private HttpRequest request;
+	private Integer userId;
+
+	@Setup
+	public void setUp() {
+		context = new SpringApplicationBuilder(BookNetworkApiServiceApplication.class)
+				.properties(
+						"server.port=0",
+						"spring.threads.virtual.enabled=" + "virtual".equals(threads),
+						"application.scheduling.enabled=false")
+				.run();
+		User user = context.getBean(UserRepository.class).save(User.builder()
+				.firstname("Jane")
+				.lastname("Reader")
+				.email(UUID.randomUUID() + "@mail.com")
+				.password("password")
+				.enabled(true)
+				.roles(List.of(context.getBean(RoleRepository.class).findByName("USER").orElseThrow()))
+				.build());
+		userId = user.getId();
+		Integer bookId = saveBook(user);
+		String token = context.getBean(JwtService.class).generateToken(Map.of("id", user.getId(),
+				"fullName", user.getFullName(), JwtService.FAMILY_CLAIM, UUID.randomUUID().toString()), user);
+
+		int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/books/" + bookId))
+				.header("Authorization", "Bearer " + token)
+				.build();
+	}
+
+	private Integer saveBook(User user) {
+		UsernamePasswordAuthenticationToken owner = new UsernamePasswordAuthenticationToken(user, null,
+				user.getAuthorities());
+		SecurityContextHolder.getContext().setAuthentication(owner);
+		try {
+			return context.getBean(BookService.class)
+					.save(new BookRequest(null, "Title", "Author", "ISBN", "Synopsis", true), owner);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		jdbcTemplate.update("DELETE FROM book WHERE owner_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM _user_roles WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM _user WHERE id = ?", userId);
+		context.close();
+	}
+
+	@Benchmark
+	public int request() throws IOException, InterruptedException {
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException("GET " + request.uri() + " answered " + response.statusCode());
+		}
+		return response.body().length;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(RequestThreadsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
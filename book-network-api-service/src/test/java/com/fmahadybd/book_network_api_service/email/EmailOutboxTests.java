@@ -0,0 +1,125 @@
+package com.fmahadybd.book_network_api_service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fmahadybd.book_network_api_service.auth.AuthenticationService;
+import com.fmahadybd.book_network_api_service.auth.RegistrationRequest;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.Message;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Emails go through the outbox: written with the registration, then delivered to a local SMTP
+ * server by the dispatcher, or retried later when the server cannot be reached.
+ */
+@SpringBootTest(properties = {
+		"spring.mail.port=3025",
+		"application.mailing.outbox.poll-interval=3600000"
+})
+class EmailOutboxTests {
+
+	@RegisterExtension
+	static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+			.withConfiguration(GreenMailConfiguration.aConfig().withUser("fahim", "fahim"));
+
+	@Autowired
+	private AuthenticationService authenticationService;
+	@Autowired
+	private EmailService emailService;
+	@Autowired
+	private EmailOutboxDispatcher dispatcher;
+	@Autowired
+	private OutboxEmailRepository outboxEmailRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void registrationEmailIsSentFromTheOutbox() throws Exception {
+		String email = UUID.randomUUID() + "@mail.com";
+		authenticationService.register(RegistrationRequest.builder()
+				.firstname("Jane")
+				.lastname("Reader")
+				.email(email)
+				.password("password")
+				.build());
+		assertEquals(1, countOutbox(email, "sent_at IS NULL"));
+
+		dispatcher.dispatch();
+
+		List<MimeMessage> received = Arrays.stream(greenMail.getReceivedMessages())
+				.filter(message -> recipient(message).equals(email))
+				.toList();
+		assertEquals(1, received.size());
+		assertEquals("Account activation", received.get(0).getSubject());
+		assertEquals(1, countOutbox(email, "sent_at IS NOT NULL"));
+	}
+
+	@Test
+	void emailsAreRetriedLaterWhenTheServerIsDown() {
+		String email = UUID.randomUUID() + "@mail.com";
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> emailService.queueEmail(
+				email, "Jane Reader", EmailTemplateName.ACTIVATE_ACCOUNT, "http://localhost", "123456", "Account activation"));
+		JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+		unreachable.setHost("localhost");
+		unreachable.setPort(ServerSetupTest.SMTP.getPort() + 1);
+		EmailOutboxDispatcher downDispatcher = new EmailOutboxDispatcher(outboxEmailRepository, unreachable,
+				transactionManager, "contact@fahimdev.com", 50, 10, 30_000, 3_600_000, 300_000);
+
+		downDispatcher.dispatch();
+
+		OutboxEmail outboxEmail = outboxEmailRepository.findAll().stream()
+				.filter(candidate -> candidate.getRecipient().equals(email))
+				.findFirst()
+				.orElseThrow();
+		assertEquals(1, outboxEmail.getAttempts());
+		assertNull(outboxEmail.getSentAt());
+		assertNull(outboxEmail.getFailedAt());
+		assertNotNull(outboxEmail.getLastError());
+		assertTrue(outboxEmail.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(10)));
+		outboxEmailRepository.delete(outboxEmail);
+	}
+
+	@Test
+	void backoffGrowsExponentiallyUpToTheMaximum() {
+		for (int attempts = 1; attempts <= 12; attempts++) {
+			long expected = Math.min(3_600_000L, 30_000L << (attempts - 1));
+			long backoff = dispatcher.backoff(attempts).toMillis();
+			assertTrue(backoff >= expected / 2 && backoff <= expected, attempts + ": " + backoff);
+		}
+	}
+
+	private int countOutbox(String recipient, String condition) {
+		return jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM email_outbox WHERE recipient = ? AND " + condition, Integer.class, recipient);
+	}
+
+	private static String recipient(MimeMessage message) {
+		try {
+			return message.getRecipients(Message.RecipientType.TO)[0].toString();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
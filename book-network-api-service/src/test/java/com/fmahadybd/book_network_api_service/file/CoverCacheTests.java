@@ -0,0 +1,79 @@
+package com.fmahadybd.book_network_api_service.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+class CoverCacheTests {
+
+	private static final int MAX_ENTRY_BYTES = 1024;
+
+	private final CoverCache cache = new CoverCache(64 * 1024, MAX_ENTRY_BYTES, false);
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void smallCoversAreCached() throws IOException {
+		byte[] picture = new byte[MAX_ENTRY_BYTES];
+		Path cover = write("small.jpg", picture);
+
+		Resource resource = cache.get(cover.toString());
+
+		assertInstanceOf(ByteBufferResource.class, resource);
+		assertEquals(MAX_ENTRY_BYTES, cache.weightedSize());
+		assertArrayEquals(picture, read(resource));
+	}
+
+	@Test
+	void largeCoversAreStreamedFromDisk() throws IOException {
+		byte[] picture = new byte[MAX_ENTRY_BYTES + 1];
+		picture[MAX_ENTRY_BYTES] = 42;
+		Path cover = write("large.jpg", picture);
+
+		Resource resource = cache.get(cover.toString());
+
+		assertInstanceOf(FileSystemResource.class, resource);
+		assertEquals(0, cache.weightedSize());
+		assertEquals(picture.length, resource.contentLength());
+		assertArrayEquals(picture, read(resource));
+	}
+
+	@Test
+	void coverGrownPastTheLimitLeavesTheCache() throws IOException {
+		Path cover = write("cover.jpg", new byte[16]);
+		cache.get(cover.toString());
+		assertEquals(16, cache.weightedSize());
+
+		write("cover.jpg", new byte[MAX_ENTRY_BYTES * 2]);
+
+		assertInstanceOf(FileSystemResource.class, cache.get(cover.toString()));
+		assertEquals(0, cache.weightedSize());
+	}
+
+	@Test
+	void missingCoverIsNull() {
+		assertNull(cache.get(directory.resolve("missing.jpg").toString()));
+	}
+
+	private Path write(String name, byte[] content) throws IOException {
+		return Files.write(directory.resolve(name), content);
+	}
+
+	private static byte[] read(Resource resource) throws IOException {
+		try (InputStream input = resource.getInputStream()) {
+			return input.readAllBytes();
+		}
+	}
+}
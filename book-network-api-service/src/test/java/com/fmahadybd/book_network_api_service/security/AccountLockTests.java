@@ -0,0 +1,81 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fmahadybd.book_network_api_service.TestFixtures;
+import com.fmahadybd.book_network_api_service.user.User;
+
+/**
+ * Tokens authenticated from their claims are refused as soon as the account is locked or disabled,
+ * without waiting for the stateless principal max age.
+ */
+@SpringBootTest(properties = {
+		"application.security.jwt.stateless-principal.enabled=true",
+		"application.scheduling.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(TestFixtures.class)
+class AccountLockTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private JwtService jwtService;
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
+	@Autowired
+	private TestFixtures fixtures;
+
+	private User user;
+	private String token;
+
+	@BeforeEach
+	void setUp() {
+		user = fixtures.newUser(TestFixtures.PASSWORD);
+		token = jwtService.generateToken(Map.of("id", user.getId(), "fullName", user.getFullName(),
+				JwtService.FAMILY_CLAIM, UUID.randomUUID().toString()), user);
+	}
+
+	@AfterEach
+	void tearDown() {
+		fixtures.deleteAll();
+	}
+
+	@Test
+	void lockedAccountIsRefusedOnTheNextRequest() throws Exception {
+		findAllBooks().andExpect(status().isOk());
+
+		userDetailsService.setAccountLocked(user.getId(), true);
+		findAllBooks().andExpect(status().isForbidden());
+
+		userDetailsService.setAccountLocked(user.getId(), false);
+		findAllBooks().andExpect(status().isOk());
+	}
+
+	@Test
+	void disabledAccountIsRefusedOnTheNextRequest() throws Exception {
+		findAllBooks().andExpect(status().isOk());
+
+		userDetailsService.setEnabled(user.getId(), false);
+		findAllBooks().andExpect(status().isForbidden());
+	}
+
+	private ResultActions findAllBooks() throws Exception {
+		return mockMvc.perform(get("/books").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+	}
+}
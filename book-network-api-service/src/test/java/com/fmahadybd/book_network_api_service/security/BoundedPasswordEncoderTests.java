@@ -0,0 +1,85 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fmahadybd.book_network_api_service.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BoundedPasswordEncoderTests {
+
+	@Test
+	void hashesOnThePoolAndRecordsTheLatency() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5_000)) {
+			encoder.bindTo(registry);
+			String hash = encoder.encode("password");
+			assertTrue(encoder.matches("password", hash));
+			assertFalse(encoder.matches("wrong", hash));
+			assertEquals(1, registry.get("auth.password.hashing").tag("operation", "encode").timer().count());
+			assertEquals(2, registry.get("auth.password.hashing").tag("operation", "matches").timer().count());
+		}
+	}
+
+	@Test
+	void saturatedPoolRefusesInsteadOfQueueing() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return true;
+			}
+		};
+		try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, 5_000)) {
+			CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "hash"));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "hash"));
+			while (encoder.queued() == 0) {
+				Thread.onSpinWait();
+			}
+			assertThrows(TooManyRequestsException.class, () -> encoder.matches("c", "hash"));
+			release.countDown();
+			assertTrue(running.get(5, TimeUnit.SECONDS));
+			assertTrue(queued.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void hashesWaitingLongerThanTheTimeoutAreRefused() {
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder stuck = new BCryptPasswordEncoder(4) {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "hash";
+			}
+		};
+		try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(stuck, 1, 1, 50)) {
+			assertThrows(TooManyRequestsException.class, () -> encoder.encode("password"));
+		} finally {
+			release.countDown();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtFilterTests {
+
+	private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+	private final JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 100);
+	private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+	private final TokenRevocationList revocationList = mock(TokenRevocationList.class);
+	private final AccountStatusCache accountStatusCache = mock(AccountStatusCache.class);
+	private final JwtFilter filter = new JwtFilter(jwtService, userDetailsService, revocationList, accountStatusCache);
+
+	private final UserDetails reader = User.withUsername("reader@mail.com").password("password").authorities("USER").build();
+	private final UUID family = UUID.randomUUID();
+	private final String token = jwtService.generateToken(
+			Map.of("id", 42, "fullName", "Jane Reader", JwtService.FAMILY_CLAIM, family.toString()), reader);
+
+	@BeforeEach
+	void activeAccounts() {
+		when(accountStatusCache.isActive(any())).thenReturn(true);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void statelessPrincipalIsBuiltWithoutLoadingTheUser() throws Exception {
+		statelessPrincipal(true, 60_000);
+		Authentication authentication = authenticate(token);
+		assertEquals(42, UserPrincipal.of(authentication).id());
+		assertEquals("reader@mail.com", authentication.getName());
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+	}
+
+	@Test
+	void tokensOlderThanTheMaxAgeAreCheckedAgainstTheDatabase() throws Exception {
+		statelessPrincipal(true, -1);
+		when(userDetailsService.loadUserByUsername("reader@mail.com")).thenReturn(reader);
+		assertSame(reader, authenticate(token).getPrincipal());
+	}
+
+	@Test
+	void lockedAccountsAreRefused() throws Exception {
+		statelessPrincipal(false, 60_000);
+		when(userDetailsService.loadUserByUsername("reader@mail.com"))
+				.thenReturn(User.withUserDetails(reader).accountLocked(true).build());
+		assertNull(authenticate(token));
+	}
+
+	@Test
+	void statelessPrincipalOfALockedAccountIsRefused() throws Exception {
+		statelessPrincipal(true, 60_000);
+		when(accountStatusCache.isActive(42)).thenReturn(false);
+		when(userDetailsService.loadUserByUsername("reader@mail.com"))
+				.thenReturn(User.withUserDetails(reader).accountLocked(true).build());
+		assertNull(authenticate(token));
+	}
+
+	@Test
+	void tokensOfARevokedFamilyAreRefused() throws Exception {
+		statelessPrincipal(true, 60_000);
+		when(revocationList.isRevoked(family)).thenReturn(true);
+		assertNull(authenticate(token));
+	}
+
+	private void statelessPrincipal(boolean enabled, long maxAge) {
+		ReflectionTestUtils.setField(filter, "statelessPrincipal", enabled);
+		ReflectionTestUtils.setField(filter, "statelessPrincipalMaxAge", maxAge);
+	}
+
+	private Authentication authenticate(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+}
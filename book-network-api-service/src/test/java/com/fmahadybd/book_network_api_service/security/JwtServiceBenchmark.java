@@ -0,0 +1,86 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Cost of authenticating a request carrying a JWT token: the former validation that built a parser
+ * and decoded the key for each of its three parses, a single parse with the shared parser, and the
+ * cache of verified tokens.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.fmahadybd.book_network_api_service.security.JwtServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+	private static final long EXPIRATION = 86400000;
+
+	private JwtService uncached;
+	private JwtService cached;
+	private UserDetails user;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		uncached = new JwtService(SECRET_KEY, EXPIRATION, 0);
+		cached = new JwtService(SECRET_KEY, EXPIRATION, 10_000);
+		user = User.withUsername("reader@mail.com").password("password").authorities("USER").build();
+		token = cached.generateToken(user);
+	}
+
+	@Benchmark
+	public boolean parserPerClaim() {
+		// extractUsername in the filter, then the username and expiration checks of isTokenValid
+		String username = parse(token).getSubject();
+		return username != null
+				&& parse(token).getSubject().equals(user.getUsername())
+				&& !parse(token).getExpiration().before(new Date());
+	}
+
+	@Benchmark
+	public boolean sharedParserOnce() {
+		return uncached.isTokenValid(uncached.verify(token), user);
+	}
+
+	@Benchmark
+	public boolean cachedVerification() {
+		return cached.isTokenValid(cached.verify(token), user);
+	}
+
+	private static Claims parse(String token) {
+		Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+		return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,69 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtServiceTests {
+
+	private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+	private final UserDetails reader = User.withUsername("reader@mail.com").password("password").authorities("USER").build();
+	private final UserDetails other = User.withUsername("other@mail.com").password("password").authorities("USER").build();
+
+	@Test
+	void verifiedTokensAreParsedOnce() {
+		JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 100);
+		String token = jwtService.generateToken(reader);
+		assertSame(jwtService.verify(token), jwtService.verify(token));
+		assertTrue(jwtService.isTokenValid(jwtService.verify(token), reader));
+		assertFalse(jwtService.isTokenValid(jwtService.verify(token), other));
+	}
+
+	@Test
+	void tamperedTokensAreRejectedEvenWhenTheOriginalIsCached() {
+		JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 100);
+		String token = jwtService.generateToken(reader);
+		jwtService.verify(token);
+		String[] parts = token.split("\\.");
+		String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+		assertThrows(SignatureException.class, () -> jwtService.verify(tampered));
+	}
+
+	@Test
+	void expiredTokensAreRejected() {
+		JwtService jwtService = new JwtService(SECRET_KEY, -1_000, 100);
+		String token = jwtService.generateToken(reader);
+		assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+		assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+	}
+
+	@Test
+	void claimsCarryTheStatelessPrincipal() {
+		JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 100);
+		String token = jwtService.generateToken(Map.of("id", 42, "fullName", "Jane Reader"), reader);
+		assertEquals(new UserPrincipal(42, "reader@mail.com", "Jane Reader", List.of(new SimpleGrantedAuthority("USER"))),
+				jwtService.toPrincipal(jwtService.verify(token)));
+	}
+
+	@Test
+	void tokensWithoutTheUserIdHaveNoStatelessPrincipal() {
+		JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 100);
+		String token = jwtService.generateToken(reader);
+		assertNull(jwtService.toPrincipal(jwtService.verify(token)));
+	}
+}
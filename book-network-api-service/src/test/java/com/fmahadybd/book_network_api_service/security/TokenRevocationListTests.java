@@ -0,0 +1,64 @@
+package com.fmahadybd.book_network_api_service.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenRevocationListTests {
+
+	private static final int FAMILIES = 1_000;
+
+	private final RevokedTokenFamilyRepository repository = mock(RevokedTokenFamilyRepository.class);
+	private final TokenRevocationList revocationList = new TokenRevocationList(repository, 60_000, FAMILIES, 0.01);
+
+	/**
+	 * Purging rebuilds the filter while other threads check tokens: a revoked family must never be
+	 * seen as not revoked, even while the table is read slowly.
+	 */
+	@Test
+	void revokedFamiliesStayRevokedWhilePurging() {
+		List<UUID> families = new ArrayList<>();
+		for (int i = 0; i < FAMILIES; i++) {
+			families.add(UUID.randomUUID());
+		}
+		when(repository.findRevokedSince(any())).thenAnswer(invocation -> {
+			TimeUnit.MILLISECONDS.sleep(5);
+			return families;
+		});
+		when(repository.existsById(any())).thenReturn(true);
+		revocationList.sync();
+
+		AtomicBoolean purging = new AtomicBoolean(true);
+		AtomicInteger missed = new AtomicInteger();
+		List<CompletableFuture<Void>> checks = new ArrayList<>();
+		for (int thread = 0; thread < 4; thread++) {
+			checks.add(CompletableFuture.runAsync(() -> {
+				while (purging.get()) {
+					for (UUID family : families) {
+						if (!revocationList.isRevoked(family)) {
+							missed.incrementAndGet();
+						}
+					}
+				}
+			}));
+		}
+		for (int i = 0; i < 50; i++) {
+			revocationList.purge();
+		}
+		purging.set(false);
+		checks.forEach(check -> check.orTimeout(1, TimeUnit.MINUTES).join());
+
+		assertEquals(0, missed.get());
+	}
+}